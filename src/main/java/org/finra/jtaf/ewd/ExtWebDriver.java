@@ -20,7 +20,11 @@ package org.finra.jtaf.ewd;
 import java.util.List;
 import java.util.Map;
 
+import org.finra.jtaf.ewd.session.InteractionLock;
+import org.finra.jtaf.ewd.timer.PollingPolicy;
+import org.finra.jtaf.ewd.widget.ElementState;
 import org.finra.jtaf.ewd.widget.IElement;
+import org.finra.jtaf.ewd.widget.WidgetException;
 import org.openqa.selenium.WebDriver;
 
 /**
@@ -381,6 +385,117 @@ public interface ExtWebDriver extends WebDriver {
 	 */
 	public long getMaxRequestTimeout();
 
+	/**
+	 * Sets the policy used by waits to decide how long to sleep between two
+	 * checks of their condition
+	 * 
+	 * @param pollingPolicy
+	 *            the policy, or null for the default policy
+	 */
+	public void setPollingPolicy(PollingPolicy pollingPolicy);
+
+	/**
+	 * Gets the policy used by waits to decide how long to sleep between two
+	 * checks of their condition
+	 * 
+	 * @return the polling policy
+	 */
+	public PollingPolicy getPollingPolicy();
+
+	/**
+	 * Sets the time asynchronous scripts may run in this session, and
+	 * remembers it so that it can be restored after a temporary change
+	 * 
+	 * @param timeout
+	 *            the timeout in milliseconds
+	 */
+	public void setScriptTimeout(long timeout);
+
+	/**
+	 * Gets the time asynchronous scripts may run in this session, as last set
+	 * with {@link #setScriptTimeout(long)}
+	 * 
+	 * @return the timeout in milliseconds
+	 */
+	public long getScriptTimeout();
+
+	/**
+	 * Sets whether element waits check their condition inside the page, woken
+	 * by DOM mutations, instead of polling through WebDriver. Waits fall back
+	 * to polling when the browser can not run asynchronous scripts.
+	 * 
+	 * @param eventDrivenWaitMode
+	 *            true to wait inside the page
+	 */
+	public void setEventDrivenWaitMode(boolean eventDrivenWaitMode);
+
+	/**
+	 * Gets whether element waits check their condition inside the page
+	 * 
+	 * @return true if waits are event driven
+	 */
+	public boolean isEventDrivenWaitMode();
+
+	/**
+	 * Sets whether elements reuse the WebElement they found last instead of
+	 * finding it through their locator on every call. A cached WebElement is
+	 * found again when it goes stale and when the session navigates or
+	 * switches frame or window through this interface.
+	 * <p>
+	 * A locator which matches another element after the page changed, while
+	 * the cached element is still attached, keeps the cached element.
+	 * 
+	 * @param webElementCaching
+	 *            true to cache WebElements
+	 */
+	public void setWebElementCaching(boolean webElementCaching);
+
+	/**
+	 * Gets whether elements reuse the WebElement they found last
+	 * 
+	 * @return true if WebElements are cached
+	 */
+	public boolean isWebElementCaching();
+
+	/**
+	 * Gets a counter of the changes of browsing context: navigation and the
+	 * selection of frames and windows through this interface. WebElements
+	 * found at one value of the counter may not be usable at another.
+	 * 
+	 * @return the current value of the counter
+	 */
+	public long getContextVersion();
+
+	/**
+	 * Gets the lock which serialises the user interactions of this session.
+	 * Unless set, local desktop browsers share
+	 * {@link InteractionLock#getDesktopLock()}, as they compete for the focus
+	 * of the operating system, while headless and grid sessions each have
+	 * their own lock.
+	 * 
+	 * @return the interaction lock of the session
+	 */
+	public InteractionLock getInteractionLock();
+
+	/**
+	 * Sets the lock which serialises the user interactions of this session
+	 * 
+	 * @param interactionLock
+	 *            the lock, or null to choose it from the browser
+	 */
+	public void setInteractionLock(InteractionLock interactionLock);
+
+	/**
+	 * Gets whether each element is present, visible and enabled, and its text,
+	 * with a single script call for elements with string or XPath locators
+	 * 
+	 * @param elements
+	 *            the elements to query
+	 * @return the state of each element, in the order of the elements
+	 * @throws WidgetException
+	 */
+	public List<ElementState> getElementStates(List<? extends IElement> elements) throws WidgetException;
+
 	/**
 	 * Gets the underlying WebDriver instance
 	 * 
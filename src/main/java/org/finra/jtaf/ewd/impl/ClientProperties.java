@@ -39,6 +39,7 @@ import com.google.common.collect.ImmutableMap;
  */
 public class ClientProperties {
 	private static final String CLIENT_KEY = "client";
+	private static final long DEFAULT_SESSION_ADMISSION_TIMEOUT = 300000;
 	
     private final Logger logger = LoggerFactory.getLogger(ClientProperties.class.getPackage().getName());
 
@@ -66,12 +67,19 @@ public class ClientProperties {
     private final String appearWaitTimeString;
     private int appearWaitTime;
     private final int maxDownloadWaitTime;
+    private final String pollingPolicy;
+    private final String pollingInterval;
+    private final boolean eventDrivenWaits;
+    private final boolean waitStatistics;
+    private final boolean webElementCaching;
+    private final String interactionLock;
     private final String downloadFolder;
     private final String uploadFolder;
 
     private final boolean flashEnabled;  // Chrome only?
 
     private final String maxAllowedSessions;
+    private final long sessionAdmissionTimeout;
     private final String binaryPath;
     private final String webDriverIEDriver;
     private final String webDriverChromeDriver;
@@ -187,6 +195,20 @@ public class ClientProperties {
                     + "'",e);
         }
 
+        pollingPolicy = load("pollingPolicy", null,
+                "How waits poll their condition: fixed, exponential, jittered or fastFirst");
+        pollingInterval = load("pollingInterval", null,
+                "Polling interval of waits (in milliseconds). For exponential and fastFirst, the longest interval");
+
+        eventDrivenWaits = Boolean.parseBoolean(load("eventDrivenWaits", "false",
+                "Wait for element conditions inside the page, woken by DOM mutations, instead of polling"));
+        waitStatistics = Boolean.parseBoolean(load("waitStatistics", "false",
+                "Record the time and checks of each wait and log the slowest waits at exit"));
+        webElementCaching = Boolean.parseBoolean(load("webElementCaching", "false",
+                "Reuse the WebElement an element found last until it goes stale or the page or frame changes"));
+        interactionLock = load("interactionLock", "auto",
+                "What user interactions are serialised with: auto, session or desktop (all sessions of the JVM)");
+
         maxDownloadWaitTime = Integer.parseInt(load("download.time", "30000",
                 "Maximum download wait timeout"));
         downloadFolder = load("download.folder", null, "Default download folder");
@@ -275,6 +297,19 @@ public class ClientProperties {
         highlightColorMap = new HashMap<String, String>();
         loadColorMapRgb();
         maxAllowedSessions = load("maxAllowedSessions", null, null);
+        String sessionAdmissionTimeoutString = load("sessionAdmissionTimeout",
+                String.valueOf(DEFAULT_SESSION_ADMISSION_TIMEOUT),
+                "Maximum time for waiting until fewer than maxAllowedSessions sessions are open (in milliseconds)");
+        long admissionTimeout;
+        try {
+            admissionTimeout = Long.parseLong(sessionAdmissionTimeoutString);
+        } catch (NumberFormatException e) {
+            logger.error("Error parsing '"
+                    + sessionAdmissionTimeoutString
+                    + "'",e);
+            admissionTimeout = DEFAULT_SESSION_ADMISSION_TIMEOUT;
+        }
+        sessionAdmissionTimeout = admissionTimeout;
 
         String debug = load("debugMode", "false",
                 "Test debug mode. If it is on, highlight will be turned on by default");
@@ -497,6 +532,63 @@ public class ClientProperties {
         return maxRequestTimeout;
     }
 
+    /**
+     * Returns the name of the policy waits use to poll their condition.
+     * 
+     * @return the polling policy name, or {@code null} for the default policy
+     */
+    public String getPollingPolicy() {
+        return pollingPolicy;
+    }
+
+    /**
+     * Returns the polling interval of waits.
+     * 
+     * @return the polling interval in milliseconds, or {@code null} for the
+     *         default interval
+     */
+    public String getPollingInterval() {
+        return pollingInterval;
+    }
+
+    /**
+     * Returns whether waits check their condition inside the page.
+     * 
+     * @return {@code true} if waits are event driven
+     */
+    public boolean isEventDrivenWaits() {
+        return eventDrivenWaits;
+    }
+
+    /**
+     * Returns whether the time and checks of each wait are recorded.
+     * 
+     * @return {@code true} if wait statistics are recorded
+     */
+    public boolean isWaitStatistics() {
+        return waitStatistics;
+    }
+
+    /**
+     * Returns whether elements reuse the WebElement they found last.
+     * 
+     * @return {@code true} if WebElements are cached
+     */
+    public boolean isWebElementCaching() {
+        return webElementCaching;
+    }
+
+    /**
+     * Returns what the user interactions of a session are serialised with.
+     * 
+     * @return {@code auto} to choose from the browser, {@code session} for a
+     *         lock of the session or {@code desktop} for the lock shared by
+     *         all sessions
+     */
+    public String getInteractionLock() {
+        return interactionLock;
+    }
+
     /**
      * Returns the maximum wait time for pages.
      * 
@@ -524,6 +616,16 @@ public class ClientProperties {
         return maxAllowedSessions;
     }
 
+    /**
+     * Returns the maximum time to wait for a session when maxAllowedSessions
+     * are open.
+     * 
+     * @return the maximum time to wait for a session in milliseconds
+     */
+    public long getSessionAdmissionTimeout() {
+        return sessionAdmissionTimeout;
+    }
+
     /**
      * Returns the path to the Firefox executable binary.
      * 
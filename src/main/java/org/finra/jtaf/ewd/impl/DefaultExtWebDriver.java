@@ -16,31 +16,38 @@
  */
 package org.finra.jtaf.ewd.impl;
 
-import java.io.ByteArrayInputStream;
-import java.io.InputStream;
-import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMResult;
-import javax.xml.transform.sax.SAXSource;
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathFactory;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.ccil.cowan.tagsoup.Parser;
 import org.finra.jtaf.ewd.ExtWebDriver;
 import org.finra.jtaf.ewd.HighlightProvider;
 import org.finra.jtaf.ewd.TimeOutException;
+import org.finra.jtaf.ewd.session.InteractionLock;
+import org.finra.jtaf.ewd.session.SessionAdmission;
+import org.finra.jtaf.ewd.session.SessionManager;
+import org.finra.jtaf.ewd.session.SessionPool;
+import org.finra.jtaf.ewd.session.SessionRegistry;
+import org.finra.jtaf.ewd.timer.PollingPolicy;
+import org.finra.jtaf.ewd.timer.WaitCancelledException;
+import org.finra.jtaf.ewd.timer.WaitForConditionTimer;
+import org.finra.jtaf.ewd.timer.WaitForConditionTimer.ITimerCallback;
+import org.finra.jtaf.ewd.utils.PageSnapshotCache;
+import org.finra.jtaf.ewd.utils.XPathExpressionCache;
+import org.finra.jtaf.ewd.widget.ElementState;
 import org.finra.jtaf.ewd.widget.IElement;
+import org.finra.jtaf.ewd.widget.WidgetException;
+import org.finra.jtaf.ewd.widget.element.ElementStateQuery;
 import org.openqa.selenium.Alert;
 import org.openqa.selenium.By;
 import org.openqa.selenium.Capabilities;
@@ -48,9 +55,9 @@ import org.openqa.selenium.HasCapabilities;
 import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.openqa.selenium.internal.WrapsElement;
 import org.w3c.dom.Node;
-import org.xml.sax.InputSource;
-import org.xml.sax.XMLReader;
 
 import com.google.common.collect.Lists;
 
@@ -64,11 +71,40 @@ public class DefaultExtWebDriver implements ExtWebDriver, HighlightProvider {
 	private static Logger logger = LoggerFactory.getLogger(ExtWebDriver.class
 			.getPackage().getName());
 
+	/**
+	 * The script timeout of a new WebDriver session, in milliseconds
+	 */
+	private static final long DEFAULT_SCRIPT_TIMEOUT = 30000;
+
 	/**
 	 * The default maximum time that waiting methods should wait
 	 */
 	private long maxRequestTimeout;
 
+	private PollingPolicy pollingPolicy = PollingPolicy.getDefault();
+
+	/**
+	 * The script timeout of the session, assumed to be the WebDriver default
+	 * until it is set
+	 */
+	private long scriptTimeout = DEFAULT_SCRIPT_TIMEOUT;
+
+	private boolean eventDrivenWaitMode = false;
+
+	private boolean webElementCaching = false;
+
+	private InteractionLock interactionLock;
+
+	/**
+	 * Counts navigation and the selection of frames and windows
+	 */
+	private final AtomicLong contextVersion = new AtomicLong();
+
+	/**
+	 * Whether the browser has been quit or given back to the session pool
+	 */
+	private final AtomicBoolean ended = new AtomicBoolean();
+
 	/**
 	 * The underlying WebDriver instance
 	 */
@@ -133,6 +169,7 @@ public class DefaultExtWebDriver implements ExtWebDriver, HighlightProvider {
 	@Override
 	public void setWrappedDriver(WebDriver wd) {
 		this.wd = wd;
+		ended.set(false);
 	}
 
 	/**
@@ -198,18 +235,25 @@ public class DefaultExtWebDriver implements ExtWebDriver, HighlightProvider {
 
 	@Override
 	public void open(String url) {
+		markUsed();
 		wd.navigate().to(url);
+		PageSnapshotCache.getInstance().invalidate(this);
+		contextVersion.incrementAndGet();
 	}
 
 	@Override
 	public void back() {
+		markUsed();
 		wd.navigate().back();
+		PageSnapshotCache.getInstance().invalidate(this);
+		contextVersion.incrementAndGet();
 	}
 
 	@Override
 	public void closeCurrentBrowser() {
 		wd.close();
 		lastSelectedFrame = null;
+		contextVersion.incrementAndGet();
 	}
 
 	@Override
@@ -222,18 +266,48 @@ public class DefaultExtWebDriver implements ExtWebDriver, HighlightProvider {
 				|| browser.equalsIgnoreCase("*iexplore")) {
 			eval("window.onbeforeunload = function(e){};");
 		}
-		wd.quit();
+		endSession();
+	}
+
+	/**
+	 * Quit the browser, or give it back to the session pool, and release the
+	 * registration and admission permit of the session. Does nothing if the
+	 * session has ended already, so that a browser given back to the pool is
+	 * not quit under the session leasing it next.
+	 */
+	private void endSession() {
+		if (ended.getAndSet(true)) {
+			return;
+		}
+		if (sessionId != null) {
+			SessionRegistry.getInstance().unregister(sessionId);
+		}
+		try {
+			SessionPool pool = SessionManager.getSessionPool();
+			if (pool == null || !pool.release(wd)) {
+				wd.quit();
+			}
+		} finally {
+			SessionAdmission.getInstance().release(this);
+		}
 		lastSelectedFrame = null;
+		contextVersion.incrementAndGet();
 	}
 
 	@Override
 	public void forward() {
+		markUsed();
 		wd.navigate().forward();
+		PageSnapshotCache.getInstance().invalidate(this);
+		contextVersion.incrementAndGet();
 	}
 
 	@Override
 	public void refresh() {
+		markUsed();
 		wd.navigate().refresh();
+		PageSnapshotCache.getInstance().invalidate(this);
+		contextVersion.incrementAndGet();
 	}
 
 	@Override
@@ -244,6 +318,7 @@ public class DefaultExtWebDriver implements ExtWebDriver, HighlightProvider {
 	// TODO: verify that focus is not needed on other browsers
 	@Override
 	public void focus() {
+		markUsed();
 		if (cp.getDebugMode() == true
 				&& (cp.getBrowser().equalsIgnoreCase("ie")
 						|| cp.getBrowser().equalsIgnoreCase("*iexplore") || cp
@@ -265,28 +340,28 @@ public class DefaultExtWebDriver implements ExtWebDriver, HighlightProvider {
 	/*
 	 * (non-Javadoc)
 	 * 
-	 * @see org.finra.jtaf.ewd.ExtWebDriver#selectWindow(java.lang.String) TODO:
-	 * use {@link org.finra.jtaf.ewd.timer.WaitForConditionTimer}
+	 * @see org.finra.jtaf.ewd.ExtWebDriver#selectWindow(java.lang.String)
 	 */
 	@Override
-	public void selectWindow(String windowId) {
-		long endTime = System.currentTimeMillis() + maxRequestTimeout;
+	public void selectWindow(final String windowId) {
+		ITimerCallback windowOpened = new ITimerCallback() {
+			@Override
+			public boolean execute() {
+				return wd.getWindowHandles().contains(windowId);
+			}
 
-		Set<String> currentWindowHandles = wd.getWindowHandles();
-		boolean found = false;
-		while (!found && System.currentTimeMillis() < endTime) {
-			if (currentWindowHandles.contains(windowId)) {
-				found = true;
-			} else {
-				currentWindowHandles = wd.getWindowHandles();
+			@Override
+			public String toString() {
+				return "window " + windowId + " to open";
 			}
-		}
+		};
 
-		if (found)
-			wd.switchTo().window(windowId);
-		else
+		if (!waitForWindow(windowOpened, windowId)) {
 			throw new TimeOutException("Could not select " + windowId
 					+ " within " + maxRequestTimeout + " milliseconds");
+		}
+		wd.switchTo().window(windowId);
+		contextVersion.incrementAndGet();
 	}
 
 	@Override
@@ -296,36 +371,61 @@ public class DefaultExtWebDriver implements ExtWebDriver, HighlightProvider {
                 "WebDriver returned a null set of WindowIds to storeCurrentWindowIds()");
         }
 
-        String windowId = null;
-
-		Set<String> windowIds = null;
-		long endTime = System.currentTimeMillis() + maxRequestTimeout;
-		boolean found = false;
-		while (!found && System.currentTimeMillis() < endTime) {
-			windowIds = wd.getWindowHandles();
-			if (windowIds.size() == (currentWindowIds.size() + 1)) {
-				windowIds.removeAll(currentWindowIds);
-				if (windowIds.size() != 1) {
-					throw new StaleWindowIdListException(
-							"Invalid set of current window IDs",
-							Lists.newArrayList(currentWindowIds),
-							Lists.newArrayList(windowIds));
-				}
-				windowId = windowIds.iterator().next();
-				selectWindow(windowId);
-				found = true;
+		final Set<String> windowIds = new HashSet<String>();
+		ITimerCallback popupOpened = new ITimerCallback() {
+			@Override
+			public boolean execute() {
+				windowIds.clear();
+				windowIds.addAll(wd.getWindowHandles());
+				return windowIds.size() == currentWindowIds.size() + 1;
 			}
-		}
 
-		if (!found) {
+			@Override
+			public String toString() {
+				return "popup window to open";
+			}
+		};
+
+		if (!waitForWindow(popupOpened, "the popup window")) {
 			throw new StaleWindowIdListException(
 					"Must set current window IDs by caling storeCurrentWindowIds() before using this function",
 					Lists.newArrayList(currentWindowIds), Lists
 							.newArrayList(windowIds));
 		}
+
+		windowIds.removeAll(currentWindowIds);
+		if (windowIds.size() != 1) {
+			throw new StaleWindowIdListException(
+					"Invalid set of current window IDs",
+					Lists.newArrayList(currentWindowIds),
+					Lists.newArrayList(windowIds));
+		}
+		String windowId = windowIds.iterator().next();
+		selectWindow(windowId);
 		return windowId;
 	}
 
+	/**
+	 * Poll the window handles following the polling policy of the session
+	 * until a window opens, or the request timeout expires
+	 * 
+	 * @param windowOpened
+	 *            checks the window handles
+	 * @param window
+	 *            the window waited for
+	 * @return true if the window opened in time
+	 * @throws TimeOutException
+	 *             if the wait was cancelled
+	 */
+	private boolean waitForWindow(ITimerCallback windowOpened, String window) {
+		try {
+			return new WaitForConditionTimer(null, windowOpened, pollingPolicy)
+					.isConditionMet(maxRequestTimeout);
+		} catch (WaitCancelledException e) {
+			throw new TimeOutException("Selecting " + window + " was cancelled");
+		}
+	}
+
 	@Override
 	public String[] getAllWindowIds() {
 		Object[] windowIds = wd.getWindowHandles().toArray();
@@ -392,6 +492,7 @@ public class DefaultExtWebDriver implements ExtWebDriver, HighlightProvider {
 	 */
 	@Override
 	public void eval(String javaScript) {
+		markUsed();
 		try {
 			// TODO: add configuration for JavaScript executor
 			((JavascriptExecutor) wd).executeScript(javaScript);
@@ -409,7 +510,8 @@ public class DefaultExtWebDriver implements ExtWebDriver, HighlightProvider {
 					try {
 						Thread.sleep(500);
 					} catch (InterruptedException e1) {
-						// TODO: log
+						Thread.currentThread().interrupt();
+						break;
 					}
 					e = e2;
 				}
@@ -523,8 +625,9 @@ public class DefaultExtWebDriver implements ExtWebDriver, HighlightProvider {
 
     @Override
 	public void selectFrame(IElement element) throws Exception {
+		contextVersion.incrementAndGet();
 		try {
-			WebElement frameElement = element.getWebElement();
+			WebElement frameElement = unwrap(element.getWebElement());
 			wd.switchTo().frame(frameElement);
 
 			if (lastSelectedFrame != null) {
@@ -541,7 +644,7 @@ public class DefaultExtWebDriver implements ExtWebDriver, HighlightProvider {
 			wd.switchTo().defaultContent();
 
 			if (lastSelectedFrame == null) {
-				WebElement frameElement = element.getWebElement();
+				WebElement frameElement = unwrap(element.getWebElement());
 				wd.switchTo().frame(frameElement);
 
 				FrameNode parentNode = new FrameNode();
@@ -570,10 +673,25 @@ public class DefaultExtWebDriver implements ExtWebDriver, HighlightProvider {
 	public void unselectFrame() {
 		wd.switchTo().defaultContent();
 		lastSelectedFrame = null;
+		contextVersion.incrementAndGet();
+	}
+
+	/**
+	 * 
+	 * @param element
+	 *            an element, possibly cached by an {@link IElement}
+	 * @return the element of the driver
+	 */
+	private static WebElement unwrap(WebElement element) {
+		while (element instanceof WrapsElement) {
+			element = ((WrapsElement) element).getWrappedElement();
+		}
+		return element;
 	}
 
 	@Override
 	public void selectLastFrame() {
+		markUsed();
 		if (!cp.shouldSelectLastFrame())
 			return;
 
@@ -614,26 +732,9 @@ public class DefaultExtWebDriver implements ExtWebDriver, HighlightProvider {
 
 	@Override
 	public String evaluateXpath(String xpath) throws Exception {
-		XPathFactory xpathFac = XPathFactory.newInstance();
-		XPath theXpath = xpathFac.newXPath();
-
-		String html = getHtmlSource();
-		html = html.replaceAll(">\\s+<", "><");
-		InputStream input = new ByteArrayInputStream(html.getBytes(Charset.forName("UTF-8")));
-
-		XMLReader reader = new Parser();
-		reader.setFeature(Parser.namespacesFeature, false);
-		Transformer transformer = TransformerFactory.newInstance()
-				.newTransformer();
-
-		DOMResult result = new DOMResult();
-		transformer.transform(new SAXSource(reader, new InputSource(input)),
-				result);
-
-		Node htmlNode = result.getNode(); // This code gets a Node from the
-											// result.
-		return (String) theXpath.evaluate(xpath, htmlNode,
-				XPathConstants.STRING);
+		Node htmlNode = PageSnapshotCache.getInstance().getDocument(this);
+		return (String) XPathExpressionCache.getInstance().evaluate(xpath,
+				htmlNode, XPathConstants.STRING);
 	}
 
 	@Override
@@ -843,7 +944,7 @@ public class DefaultExtWebDriver implements ExtWebDriver, HighlightProvider {
 
 	@Override
 	public void quit() {
-		wd.quit();
+		endSession();
 	}
 
 	@Override
@@ -861,11 +962,87 @@ public class DefaultExtWebDriver implements ExtWebDriver, HighlightProvider {
 		return maxRequestTimeout;
 	}
 
+	@Override
+	public void setPollingPolicy(PollingPolicy pollingPolicy) {
+		this.pollingPolicy = pollingPolicy != null ? pollingPolicy : PollingPolicy.getDefault();
+	}
+
+	@Override
+	public PollingPolicy getPollingPolicy() {
+		return pollingPolicy;
+	}
+
+	@Override
+	public void setScriptTimeout(long timeout) {
+		wd.manage().timeouts().setScriptTimeout(timeout, TimeUnit.MILLISECONDS);
+		scriptTimeout = timeout;
+	}
+
+	@Override
+	public long getScriptTimeout() {
+		return scriptTimeout;
+	}
+
+	@Override
+	public void setEventDrivenWaitMode(boolean eventDrivenWaitMode) {
+		this.eventDrivenWaitMode = eventDrivenWaitMode;
+	}
+
+	@Override
+	public boolean isEventDrivenWaitMode() {
+		return eventDrivenWaitMode;
+	}
+
+	@Override
+	public void setWebElementCaching(boolean webElementCaching) {
+		this.webElementCaching = webElementCaching;
+	}
+
+	@Override
+	public boolean isWebElementCaching() {
+		return webElementCaching;
+	}
+
+	@Override
+	public long getContextVersion() {
+		return contextVersion.get();
+	}
+
+	@Override
+	public synchronized InteractionLock getInteractionLock() {
+		if (interactionLock == null) {
+			boolean desktop = !(wd instanceof HtmlUnitDriver) && (cp == null || !cp.isUseGrid());
+			interactionLock = desktop ? InteractionLock.getDesktopLock() : new InteractionLock("session");
+		}
+		return interactionLock;
+	}
+
+	@Override
+	public synchronized void setInteractionLock(InteractionLock interactionLock) {
+		this.interactionLock = interactionLock;
+	}
+
+	@Override
+	public List<ElementState> getElementStates(List<? extends IElement> elements) throws WidgetException {
+		return ElementStateQuery.getElementStates(this, elements);
+	}
+
 	@Override
 	public WebDriver getWrappedDriver() {
+		markUsed();
 		return wd;
 	}
 
+	/**
+	 * Tell the session registry that the session is in use, so that it is not
+	 * closed as idle
+	 */
+	private void markUsed() {
+		if (sessionId != null) {
+			SessionRegistry.getInstance().touch(sessionId);
+		}
+	}
+
 	@Override
 	public int getXpathCount(String string) {
 		return wd.findElements(By.xpath(string)).size();
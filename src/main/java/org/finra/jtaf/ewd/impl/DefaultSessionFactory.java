@@ -38,7 +38,12 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.finra.jtaf.ewd.ExtWebDriver;
+import org.finra.jtaf.ewd.session.InteractionLock;
+import org.finra.jtaf.ewd.session.SessionAdmission;
+import org.finra.jtaf.ewd.session.SessionAdmissionPolicy;
 import org.finra.jtaf.ewd.session.SessionFactory;
+import org.finra.jtaf.ewd.timer.PollingPolicy;
+import org.finra.jtaf.ewd.timer.WaitStatistics;
 import org.openqa.selenium.Dimension;
 import org.openqa.selenium.Point;
 import org.openqa.selenium.Proxy;
@@ -63,7 +68,7 @@ import org.openqa.selenium.safari.SafariDriver;
  *
  */
 
-public class DefaultSessionFactory implements SessionFactory {
+public class DefaultSessionFactory implements SessionFactory, SessionAdmissionPolicy {
     private static final long MILLISECONDS_IN_DAY = 86400000;
     private static final Object lock = new Object();
     private static final Log log = LogFactory.getLog(DefaultSessionFactory.class);
@@ -79,6 +84,18 @@ public class DefaultSessionFactory implements SessionFactory {
 
         ClientProperties properties = new ClientProperties(options);
 
+        // Sessions are only admitted by SessionManager after cleanup
+        String maxAllowedSessions = properties.getMaxAllowedSessions();
+        if (!Strings.isNullOrEmpty(maxAllowedSessions)) {
+            try {
+                SessionAdmission.getInstance().setMaxSessions(
+                        Integer.parseInt(maxAllowedSessions.trim()));
+            } catch (IllegalArgumentException e) {
+                log.error("Invalid value of client property 'maxAllowedSessions': "
+                        + maxAllowedSessions, e);
+            }
+        }
+
         if (!executedTaskKill) {
             synchronized (lock) {
                 if (properties.isKillTasksAtStartup()) {
@@ -502,6 +519,16 @@ public class DefaultSessionFactory implements SessionFactory {
 		return chromeOptions;
 	}
 
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.finra.jtaf.ewd.session.SessionAdmissionPolicy
+     */
+    @Override
+    public long getAdmissionTimeout(Map<String, String> options) throws Exception {
+        return new ClientProperties(options).getSessionAdmissionTimeout();
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -520,6 +547,18 @@ public class DefaultSessionFactory implements SessionFactory {
 
         // Set timeout value
         selenium.setMaxRequestTimeout(properties.getMaxRequestTimeoutString());
+        selenium.setPollingPolicy(PollingPolicy.parse(properties.getPollingPolicy(),
+                properties.getPollingInterval()));
+        selenium.setEventDrivenWaitMode(properties.isEventDrivenWaits());
+        selenium.setWebElementCaching(properties.isWebElementCaching());
+        if ("session".equalsIgnoreCase(properties.getInteractionLock())) {
+            selenium.setInteractionLock(new InteractionLock("session"));
+        } else if ("desktop".equalsIgnoreCase(properties.getInteractionLock())) {
+            selenium.setInteractionLock(InteractionLock.getDesktopLock());
+        }
+        if (properties.isWaitStatistics()) {
+            WaitStatistics.getInstance().setEnabled(true);
+        }
 
         // Highlighting
                 selenium.setHighlightColors(properties.getHighlightColorMap());
@@ -0,0 +1,141 @@
+/*
+ * (C) Copyright 2013 Java Test Automation Framework Contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.finra.jtaf.ewd.session;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serialises the user interactions (clicks, typing, mouse and key actions)
+ * which must not interleave. A desktop browser on the local machine needs the
+ * focus of the operating system while it is driven, so all local desktop
+ * sessions share {@link #getDesktopLock()}; headless and remote sessions each
+ * have their own lock and interact in parallel.
+ * <p>
+ * The lock counts how often it was acquired, how often a thread had to wait
+ * for it and how long the waits took.
+ */
+public final class InteractionLock {
+
+    private static final InteractionLock DESKTOP = new InteractionLock("desktop");
+
+    private final String name;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final AtomicLong contentions = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    /**
+     * 
+     * @param name
+     *            the name of the lock, shown by {@link #toString()}
+     */
+    public InteractionLock(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 
+     * @return the lock shared by the desktop browsers of this JVM, which
+     *         compete for the focus of the operating system
+     */
+    public static InteractionLock getDesktopLock() {
+        return DESKTOP;
+    }
+
+    /**
+     * Block until the lock is held by the current thread. The lock is
+     * reentrant.
+     */
+    public void lock() {
+        if (!lock.tryLock()) {
+            contentions.incrementAndGet();
+            long start = System.nanoTime();
+            lock.lock();
+            waitNanos.addAndGet(System.nanoTime() - start);
+        }
+        acquisitions.incrementAndGet();
+    }
+
+    /**
+     * Release the lock
+     * 
+     * @throws IllegalMonitorStateException
+     *             if the current thread does not hold the lock
+     */
+    public void unlock() {
+        lock.unlock();
+    }
+
+    /**
+     * Run a task with the lock held, releasing it however the task ends
+     * 
+     * @param task
+     *            the task
+     * @return the result of the task
+     * @throws Exception
+     *             any exception thrown by the task
+     */
+    public <T> T run(Callable<T> task) throws Exception {
+        lock();
+        try {
+            return task.call();
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * 
+     * @return the name of the lock
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 
+     * @return the number of times the lock was acquired
+     */
+    public long getAcquisitions() {
+        return acquisitions.get();
+    }
+
+    /**
+     * 
+     * @return the number of times a thread had to wait for the lock
+     */
+    public long getContentions() {
+        return contentions.get();
+    }
+
+    /**
+     * 
+     * @return the total time threads waited for the lock, in milliseconds
+     */
+    public long getWaitTime() {
+        return TimeUnit.NANOSECONDS.toMillis(waitNanos.get());
+    }
+
+    @Override
+    public String toString() {
+        return "InteractionLock [" + name + ": " + acquisitions.get() + " acquisitions, "
+                + contentions.get() + " contended, " + getWaitTime() + " ms waiting]";
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * (C) Copyright 2013 Java Test Automation Framework Contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.finra.jtaf.ewd.session;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.finra.jtaf.ewd.ExtWebDriver;
+import org.finra.jtaf.ewd.TimeOutException;
+
+/**
+ * Limits the number of sessions open at the same time in the JVM, so that
+ * parallel suites do not start more browsers than the machine can run. Threads
+ * asking for a session beyond the limit wait in a fair queue, in the order
+ * they asked, until another session is closed or their admission timeout
+ * expires.
+ * <p>
+ * The limit is set from the client property {@code maxAllowedSessions}; no
+ * limit is enforced until it is set. Sessions are admitted by
+ * {@link SessionManager}, which waits as long as the client property
+ * {@code sessionAdmissionTimeout} of the new session says, and leave when
+ * they are closed or quit.
+ * <p>
+ * The limit counts running browsers. With a {@link SessionPool}, the pool
+ * holds a permit for each browser it launches, idle or leased, until it quits
+ * the browser; sessions leasing from the pool take no permit of their own.
+ */
+public final class SessionAdmission {
+
+    /**
+     * The time, in milliseconds, a thread waits for a session when its session
+     * factory does not say
+     */
+    public static final long DEFAULT_TIMEOUT = 300000;
+
+    private static final SessionAdmission instance = new SessionAdmission();
+
+    private final AdjustableSemaphore permits = new AdjustableSemaphore();
+
+    private final Map<ExtWebDriver, Permit> admitted = Collections
+            .synchronizedMap(new IdentityHashMap<ExtWebDriver, Permit>());
+
+    private int maxSessions = 0;
+
+    private final AtomicLong admissions = new AtomicLong();
+    private final AtomicLong waits = new AtomicLong();
+    private final AtomicLong waitTime = new AtomicLong();
+    private final AtomicLong maxWaitTime = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+
+    SessionAdmission() {
+
+    }
+
+    /**
+     * 
+     * @return the admission controller of the JVM
+     */
+    public static SessionAdmission getInstance() {
+        return instance;
+    }
+
+    /**
+     * 
+     * @param factory
+     *            the factory of the new session
+     * @param options
+     *            the options of the new session
+     * @return the time, in milliseconds, to wait for the session
+     * @throws Exception
+     *             if the factory can not read the options
+     */
+    static long getTimeout(SessionFactory factory, Map<String, String> options)
+            throws Exception {
+        return factory instanceof SessionAdmissionPolicy ? ((SessionAdmissionPolicy) factory)
+                .getAdmissionTimeout(options) : DEFAULT_TIMEOUT;
+    }
+
+    /**
+     * Change the number of sessions which may be open at the same time.
+     * Sessions already open are not closed; new ones wait until enough of
+     * them are.
+     * 
+     * @param maxSessions
+     *            the limit, or 0 for no limit
+     */
+    public synchronized void setMaxSessions(int maxSessions) {
+        if (maxSessions < 0) {
+            throw new IllegalArgumentException("Maximum sessions must not be negative: "
+                    + maxSessions);
+        }
+        // the semaphore holds the limit minus the permits in use, so that
+        // changing the limit is a matter of adding the difference
+        int difference = maxSessions - this.maxSessions;
+        if (difference > 0) {
+            permits.release(difference);
+        } else if (difference < 0) {
+            permits.reducePermits(-difference);
+        }
+        this.maxSessions = maxSessions;
+    }
+
+    /**
+     * 
+     * @return the number of sessions which may be open at the same time, 0 if
+     *         there is no limit
+     */
+    public synchronized int getMaxSessions() {
+        return maxSessions;
+    }
+
+    /**
+     * Wait until a new session may be opened
+     * 
+     * @param timeout
+     *            the time, in milliseconds, to wait before failing
+     * @return the permit, to be passed to {@link #admit(ExtWebDriver, Permit)}
+     *         once the session is created or to {@link #cancel(Permit)} if it
+     *         can not be
+     * @throws TimeOutException
+     *             if no session is closed before the timeout
+     * @throws InterruptedException
+     *             if the thread is interrupted while waiting
+     */
+    Permit acquire(long timeout) throws InterruptedException {
+        synchronized (this) {
+            if (maxSessions == 0) {
+                return Permit.NONE;
+            }
+        }
+        // unlike tryAcquire(), a timed try does not jump the queue
+        if (permits.tryAcquire(0, TimeUnit.MILLISECONDS)) {
+            return new Permit(true);
+        }
+
+        long start = System.nanoTime();
+        boolean acquired = permits.tryAcquire(timeout, TimeUnit.MILLISECONDS);
+        long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        waits.incrementAndGet();
+        waitTime.addAndGet(waited);
+        long max = maxWaitTime.get();
+        while (waited > max && !maxWaitTime.compareAndSet(max, waited)) {
+            max = maxWaitTime.get();
+        }
+        if (!acquired) {
+            timeouts.incrementAndGet();
+            throw new TimeOutException("Timed out after " + waited
+                    + " ms waiting for one of the " + getMaxSessions()
+                    + " allowed sessions to be closed");
+        }
+        return new Permit(true);
+    }
+
+    /**
+     * Take a permit if one is free and no thread waits for one
+     * 
+     * @return the permit, or null if the limit is reached
+     */
+    Permit tryAcquire() {
+        synchronized (this) {
+            if (maxSessions == 0) {
+                return Permit.NONE;
+            }
+        }
+        try {
+            return permits.tryAcquire(0, TimeUnit.MILLISECONDS) ? new Permit(true) : null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Record that a session holds a permit
+     */
+    void admit(ExtWebDriver session, Permit permit) {
+        admissions.incrementAndGet();
+        admitted.put(session, permit);
+    }
+
+    /**
+     * Give back a permit which is not recorded for a session: the permit of a
+     * session which could not be created, or of a pooled browser which was
+     * quit
+     */
+    void cancel(Permit permit) {
+        if (permit.held) {
+            permits.release();
+        }
+    }
+
+    /**
+     * Let the next waiting thread open a session, once a session is closed.
+     * Does nothing for a session which was not admitted or was released
+     * already.
+     * 
+     * @param session
+     *            the closed session
+     */
+    public void release(ExtWebDriver session) {
+        Permit permit = admitted.remove(session);
+        if (permit != null) {
+            cancel(permit);
+        }
+    }
+
+    /**
+     * 
+     * @return the number of admitted sessions which have not been closed
+     */
+    public int getActiveSessions() {
+        return admitted.size();
+    }
+
+    /**
+     * 
+     * @return an estimate of the number of threads waiting for a session
+     */
+    public int getQueueLength() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * 
+     * @return the number of sessions admitted so far
+     */
+    public long getAdmissions() {
+        return admissions.get();
+    }
+
+    /**
+     * 
+     * @return the number of times a thread had to wait for a session
+     */
+    public long getWaits() {
+        return waits.get();
+    }
+
+    /**
+     * 
+     * @return the total time, in milliseconds, threads waited for sessions
+     */
+    public long getWaitTime() {
+        return waitTime.get();
+    }
+
+    /**
+     * 
+     * @return the longest time, in milliseconds, a thread waited for a session
+     */
+    public long getMaxWaitTime() {
+        return maxWaitTime.get();
+    }
+
+    /**
+     * 
+     * @return the number of threads which gave up waiting for a session
+     */
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    /**
+     * Whether a session holds one of the limited permits
+     */
+    static final class Permit {
+        /**
+         * The permit of a session which is not counted, because there is no
+         * limit or its browser holds a permit of its own
+         */
+        static final Permit NONE = new Permit(false);
+
+        private final boolean held;
+
+        private Permit(boolean held) {
+            this.held = held;
+        }
+    }
+
+    /**
+     * A fair semaphore whose permits can be taken away when the limit shrinks
+     */
+    private static final class AdjustableSemaphore extends Semaphore {
+        private static final long serialVersionUID = 1L;
+
+        private AdjustableSemaphore() {
+            super(0, true);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
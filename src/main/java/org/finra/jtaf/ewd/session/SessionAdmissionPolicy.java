@@ -0,0 +1,37 @@
+/*
+ * (C) Copyright 2013 Java Test Automation Framework Contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.finra.jtaf.ewd.session;
+
+import java.util.Map;
+
+/**
+ * Implemented by a {@link SessionFactory} which configures how long a new
+ * session waits for {@link SessionAdmission} when the maximum number of
+ * sessions are open. Sessions of other factories wait
+ * {@value SessionAdmission#DEFAULT_TIMEOUT} ms.
+ */
+public interface SessionAdmissionPolicy {
+
+    /**
+     * 
+     * @param options
+     *            the options of the new session
+     * @return the time, in milliseconds, the session waits to be admitted
+     * @throws Exception
+     */
+    public long getAdmissionTimeout(Map<String, String> options) throws Exception;
+}
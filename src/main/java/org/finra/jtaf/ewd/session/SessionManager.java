@@ -16,9 +16,17 @@
  */
 package org.finra.jtaf.ewd.session;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import org.finra.jtaf.ewd.ExtWebDriver;
 import org.finra.jtaf.ewd.impl.DefaultSessionFactory;
@@ -28,20 +36,38 @@ import org.openqa.selenium.remote.UnreachableBrowserException;
 
 /**
  * SessionManager for the testing framework. Uses a ThreadLocal so each thread
- * of test execution has its own manager instance.
+ * of test execution has its own manager instance. The sessions of all
+ * managers are tracked by the {@link SessionRegistry}, which closes those
+ * left behind by dead threads.
  * 
  */
 public class SessionManager {
 
-    private Map<String, ExtWebDriver> sessions = new HashMap<String, ExtWebDriver>();
+    private Map<String, ExtWebDriver> sessions = Collections
+            .synchronizedMap(new HashMap<String, ExtWebDriver>());
 
     private final static String DEFAULT_SESSION = "default";
 
     private final static int MAX_RETRIES = 5;
 
-    private String currentSessionId = DEFAULT_SESSION;
-    private int nextCustomSessionId = 1;
+    /**
+     * The most browsers launched at the same time by
+     * {@link #getNewSessionsAsync(int, Map)}
+     */
+    public final static int MAX_PARALLEL_LAUNCHES = Math.max(2, Runtime.getRuntime()
+            .availableProcessors());
+
+    private final static ExecutorService launcher = Executors.newFixedThreadPool(
+            MAX_PARALLEL_LAUNCHES, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "session-launcher");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
 
+    private String currentSessionId = DEFAULT_SESSION;
     private boolean doCleanup = true;
 
     private SessionManager() {
@@ -54,6 +80,8 @@ public class SessionManager {
         }
     };
     
+    private static volatile SessionPool sessionPool;
+
     private static ThreadLocal<SessionFactory> sessionFactory = new ThreadLocal<SessionFactory>() {
         protected synchronized SessionFactory initialValue() {
             return new DefaultSessionFactory();
@@ -93,6 +121,26 @@ public class SessionManager {
         return this;
     }
 
+    /**
+     * Make new sessions of all threads lease their browser from the given
+     * pool, and {@link ExtWebDriver#close()} give it back. Sessions created
+     * before keep quitting their browser on close.
+     * 
+     * @param pool
+     *            the pool, or null to launch a browser for each session
+     */
+    public static void setSessionPool(SessionPool pool) {
+        sessionPool = pool;
+    }
+
+    /**
+     * 
+     * @return the pool browsers are leased from, or null if there is none
+     */
+    public static SessionPool getSessionPool() {
+        return sessionPool;
+    }
+
     /**
      * Get the current session associated with this thread. Because a
      * SessionManager instance is thread-local, the notion of current is also
@@ -111,7 +159,7 @@ public class SessionManager {
     public ExtWebDriver getCurrentSession(boolean createIfNotFound) {
 
         for (int i = 0; i < MAX_RETRIES; i++) {
-            ExtWebDriver sel = sessions.get(currentSessionId);
+            ExtWebDriver sel = getSession(currentSessionId);
             try {
                 if ((sel == null) && (createIfNotFound)) {
                     sel = getNewSession();
@@ -148,6 +196,7 @@ public class SessionManager {
      */
 
     public ExtWebDriver getSession(String sessionId) {
+        SessionRegistry.getInstance().touch(sessionId);
         return sessions.get(sessionId);
     }
 
@@ -205,6 +254,7 @@ public class SessionManager {
 
     public void removeSession(String sessionId) {
         sessions.remove(sessionId);
+        SessionRegistry.getInstance().unregister(sessionId);
     }
 
     /**
@@ -217,7 +267,7 @@ public class SessionManager {
      */
 
     public void removeSession(ExtWebDriver session) {
-        sessions.remove(session.getSessionId());
+        removeSession(session.getSessionId());
     }
 
     /**
@@ -345,22 +395,78 @@ public class SessionManager {
         return getNewSessionDo(options, setAsCurrent);
     }
 
-    private ExtWebDriver getNewSessionDo(Map<String, String> options, boolean setAsCurrent)
-            throws Exception {
+    /**
+     * Launch new ExtWebDriver sessions with default options concurrently. See
+     * {@link #getNewSessionsAsync(int, Map)}.
+     * 
+     * @param count
+     *            the number of sessions to create
+     * @return one future per session, in the order of their IDs
+     * @throws Exception
+     */
 
-        if (doCleanup) {
-            sessionFactory.get().cleanup(options);
-            doCleanup = false;
+    public List<Future<ExtWebDriver>> getNewSessionsAsync(int count) throws Exception {
+        return getNewSessionsAsync(count, new HashMap<String, String>());
+    }
+
+    /**
+     * Launch new ExtWebDriver sessions concurrently, for tests which need
+     * several browsers at once. The sessions are constructed with default
+     * options, with the provided Map of key/value pairs overriding the
+     * corresponding pairs in the options. At most
+     * {@link #MAX_PARALLEL_LAUNCHES} browsers are launched at the same time.
+     * <p>
+     * The session IDs are reserved when this method returns, and each session
+     * is added to this SessionManager once its browser has been launched. None
+     * becomes the current session. If a session can not be created, its future
+     * throws an ExecutionException caused by the failure; the other sessions
+     * are not affected.
+     * 
+     * @param count
+     *            the number of sessions to create
+     * @param override
+     *            A Map of options to be overridden
+     * @return one future per session, in the order of their IDs
+     * @throws Exception
+     *             if stale browsers can not be cleaned up before the launch
+     */
+
+    public List<Future<ExtWebDriver>> getNewSessionsAsync(int count,
+            Map<String, String> override) throws Exception {
+
+        final SessionFactory factory = sessionFactory.get();
+        final Map<String, String> options = factory.createDefaultOptions();
+        options.putAll(override);
+
+        cleanup(factory, options);
+
+        final Thread owner = Thread.currentThread();
+        List<Future<ExtWebDriver>> futures = new ArrayList<Future<ExtWebDriver>>();
+        for (int i = 0; i < count; i++) {
+            final String sessionId = getNextCustomSessionId();
+            futures.add(launcher.submit(new Callable<ExtWebDriver>() {
+                @Override
+                public ExtWebDriver call() throws Exception {
+                    ExtWebDriver sel = createSession(factory,
+                            new HashMap<String, String>(options));
+                    sessions.put(sessionId, sel);
+                    sel.setSessionId(sessionId);
+                    SessionRegistry.getInstance().register(sessionId, sel,
+                            SessionManager.this, owner);
+                    return sel;
+                }
+            }));
         }
+        return futures;
+    }
 
-        // Get capabilities
-        DesiredCapabilities dc = sessionFactory.get().createCapabilities(options);
+    private ExtWebDriver getNewSessionDo(Map<String, String> options, boolean setAsCurrent)
+            throws Exception {
 
-        // Get driver instance
-        WebDriver innerDriver = sessionFactory.get().createInnerDriver(options, dc);
+        SessionFactory factory = sessionFactory.get();
+        cleanup(factory, options);
 
-        // Inject as wrapped driver
-        ExtWebDriver sel = sessionFactory.get().createNewSession(options, innerDriver);
+        ExtWebDriver sel = createSession(factory, options);
 
         String sessionId = getNextCustomSessionId();
         if (setAsCurrent) {
@@ -373,16 +479,74 @@ public class SessionManager {
         // Pass ID to the EWD instance
         sel.setSessionId(sessionId);
 
+        SessionRegistry.getInstance().register(sessionId, sel, this, Thread.currentThread());
+
         return sel;
     }
 
+    private void cleanup(SessionFactory factory, Map<String, String> options) throws Exception {
+        if (doCleanup) {
+            factory.cleanup(options);
+            doCleanup = false;
+        }
+    }
+
+    /**
+     * Launch a browser, or lease one from the session pool, and wrap it. Does
+     * not touch the state of this SessionManager, so that it can run on any
+     * thread.
+     */
+    private static ExtWebDriver createSession(SessionFactory factory, Map<String, String> options)
+            throws Exception {
+
+        SessionAdmission admission = SessionAdmission.getInstance();
+        SessionPool pool = sessionPool;
+        if (pool != null) {
+            // Lease a browser launched ahead of time. The pool holds a permit
+            // for each of its browsers, so the session takes none.
+            WebDriver innerDriver = pool.lease(factory, options);
+            try {
+                ExtWebDriver sel = factory.createNewSession(options, innerDriver);
+                admission.admit(sel, SessionAdmission.Permit.NONE);
+                return sel;
+            } catch (Exception e) {
+                pool.release(innerDriver);
+                throw e;
+            } catch (Error e) {
+                pool.release(innerDriver);
+                throw e;
+            }
+        }
+
+        // Wait until fewer than maxAllowedSessions sessions are open
+        SessionAdmission.Permit permit = admission.acquire(SessionAdmission.getTimeout(factory,
+                options));
+
+        try {
+            // Get capabilities
+            DesiredCapabilities dc = factory.createCapabilities(options);
+
+            // Get driver instance
+            WebDriver innerDriver = factory.createInnerDriver(options, dc);
+
+            // Inject as wrapped driver
+            ExtWebDriver sel = factory.createNewSession(options, innerDriver);
+            admission.admit(sel, permit);
+            return sel;
+        } catch (Exception e) {
+            admission.cancel(permit);
+            throw e;
+        } catch (Error e) {
+            admission.cancel(permit);
+            throw e;
+        }
+    }
+
     /**
      * 
-     * @return String of the next session Id
+     * @return String of the next session Id, unique across threads
      */
     private String getNextCustomSessionId() {
-        String id = "custom_" + nextCustomSessionId;
-        nextCustomSessionId++;
-        return id;
+        return SessionRegistry.getInstance().nextSessionId();
     }
 }
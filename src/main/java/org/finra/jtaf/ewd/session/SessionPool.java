@@ -0,0 +1,460 @@
+/*
+ * (C) Copyright 2013 Java Test Automation Framework Contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.finra.jtaf.ewd.session;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.DesiredCapabilities;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps browsers launched ahead of time, so that a new session does not wait
+ * for a browser to start. Browsers are pooled per options fingerprint: the
+ * session factory and the options a session is created with, which name the
+ * client properties and the overrides selecting the browser, its version and
+ * grid.
+ * <p>
+ * When {@link SessionManager#setSessionPool(SessionPool)} is set, new sessions
+ * lease their browser from the pool and
+ * {@link org.finra.jtaf.ewd.ExtWebDriver#close()} returns it. A returned
+ * browser is reset (extra windows closed, cookies deleted, frames unselected,
+ * blank page loaded) and kept for the next session, unless it was used
+ * {@code maxUses} times or is older than {@code maxAge}, in which case it is
+ * quit. After each lease the pool starts browsers in the background until
+ * {@code size} are idle for the fingerprint.
+ * <p>
+ * Every browser of the pool, idle or leased, holds a {@link SessionAdmission}
+ * permit until it is quit, so that the pool does not run more browsers than
+ * {@code maxAllowedSessions}. Browsers are only started in the background
+ * while a permit is free; when none is, a lease which finds no idle browser of
+ * its fingerprint quits an idle browser of another one and waits for a permit.
+ */
+public class SessionPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionPool.class);
+
+    private final int size;
+    private final int maxUses;
+    private final long maxAge;
+    private final SessionAdmission admission;
+
+    private final Map<String, Deque<PooledDriver>> idle = new HashMap<String, Deque<PooledDriver>>();
+    private final Map<WebDriver, PooledDriver> leased = new IdentityHashMap<WebDriver, PooledDriver>();
+    private final Map<String, Integer> starting = new HashMap<String, Integer>();
+    private boolean shutdown = false;
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+    private final AtomicLong retired = new AtomicLong();
+
+    private final Thread shutdownHook = new Thread("session-pool-shutdown") {
+        @Override
+        public void run() {
+            shutdown();
+        }
+    };
+
+    private final ExecutorService launcher = Executors.newCachedThreadPool(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "session-pool-launcher");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    /**
+     * 
+     * @param size
+     *            the number of idle browsers to keep per fingerprint
+     * @param maxUses
+     *            the number of sessions a browser serves before it is quit
+     * @param maxAge
+     *            the time, in milliseconds, after which a browser is quit
+     *            instead of being leased again
+     */
+    public SessionPool(int size, int maxUses, long maxAge) {
+        this(size, maxUses, maxAge, SessionAdmission.getInstance());
+    }
+
+    /**
+     * 
+     * @param admission
+     *            counts the browsers of the pool against its limit
+     */
+    SessionPool(int size, int maxUses, long maxAge, SessionAdmission admission) {
+        if (size < 0 || maxUses < 1 || maxAge < 0) {
+            throw new IllegalArgumentException("Invalid session pool: size=" + size + " maxUses="
+                    + maxUses + " maxAge=" + maxAge);
+        }
+        this.size = size;
+        this.maxUses = maxUses;
+        this.maxAge = maxAge;
+        this.admission = admission;
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Start browsers in the background until {@code size} are idle for the
+     * fingerprint of the options
+     * 
+     * @param factory
+     *            the factory which launches the browsers
+     * @param options
+     *            the options of the sessions
+     */
+    public void prewarm(SessionFactory factory, Map<String, String> options) {
+        refill(factory, new HashMap<String, String>(options), getFingerprint(factory, options));
+    }
+
+    /**
+     * Lease an idle browser of the fingerprint of the options, or launch one
+     * if none is idle
+     * 
+     * @param factory
+     *            the factory which launches the browser
+     * @param options
+     *            the options of the session
+     * @return the browser, to be given back with {@link #release(WebDriver)}
+     * @throws org.finra.jtaf.ewd.TimeOutException
+     *             if a browser has to be launched and the admission timeout of
+     *             the session expires before a permit is free
+     * @throws Exception
+     *             if a browser can not be launched
+     */
+    public WebDriver lease(SessionFactory factory, Map<String, String> options) throws Exception {
+        String fingerprint = getFingerprint(factory, options);
+        PooledDriver pooled = null;
+        List<PooledDriver> expired = new ArrayList<PooledDriver>();
+        synchronized (this) {
+            Deque<PooledDriver> drivers = idle.get(fingerprint);
+            while (pooled == null && drivers != null && !drivers.isEmpty()) {
+                PooledDriver candidate = drivers.pollFirst();
+                if (candidate.isExpired()) {
+                    expired.add(candidate);
+                } else {
+                    pooled = candidate;
+                }
+            }
+        }
+        for (PooledDriver driver : expired) {
+            retire(driver);
+        }
+
+        if (pooled != null) {
+            reused.incrementAndGet();
+        } else {
+            SessionAdmission.Permit permit = acquire(factory, options);
+            try {
+                pooled = launch(factory, options, fingerprint, permit);
+            } catch (Exception e) {
+                admission.cancel(permit);
+                throw e;
+            } catch (Error e) {
+                admission.cancel(permit);
+                throw e;
+            }
+        }
+        synchronized (this) {
+            pooled.uses++;
+            leased.put(pooled.driver, pooled);
+        }
+        refill(factory, new HashMap<String, String>(options), fingerprint);
+        return pooled.driver;
+    }
+
+    /**
+     * Give back a leased browser. It is reset and kept for the next session,
+     * or quit if it reached its limits or can not be reset.
+     * 
+     * @param driver
+     *            the browser
+     * @return false if the browser was not leased from this pool
+     */
+    public boolean release(WebDriver driver) {
+        PooledDriver pooled;
+        boolean keep;
+        synchronized (this) {
+            pooled = leased.remove(driver);
+            if (pooled == null) {
+                return false;
+            }
+            keep = !shutdown && pooled.uses < maxUses && !pooled.isExpired();
+        }
+
+        if (keep && reset(driver)) {
+            synchronized (this) {
+                if (!shutdown) {
+                    getIdle(pooled.fingerprint).addLast(pooled);
+                    return true;
+                }
+            }
+        }
+        retire(pooled);
+        return true;
+    }
+
+    /**
+     * Quit the idle browsers and stop launching new ones. Leased browsers are
+     * quit when they are released. A pool quits its idle browsers itself when
+     * the JVM exits, unless it was shut down before.
+     */
+    public void shutdown() {
+        List<PooledDriver> drivers = new ArrayList<PooledDriver>();
+        synchronized (this) {
+            if (!shutdown && Thread.currentThread() != shutdownHook) {
+                // so that the JVM does not keep the pool until it exits
+                try {
+                    Runtime.getRuntime().removeShutdownHook(shutdownHook);
+                } catch (IllegalStateException e) {
+                    // the JVM is already shutting down
+                }
+            }
+            shutdown = true;
+            for (Deque<PooledDriver> deque : idle.values()) {
+                drivers.addAll(deque);
+            }
+            idle.clear();
+        }
+        launcher.shutdown();
+        for (PooledDriver driver : drivers) {
+            retire(driver);
+        }
+    }
+
+    /**
+     * 
+     * @return the number of browsers launched by the pool
+     */
+    public long getCreated() {
+        return created.get();
+    }
+
+    /**
+     * 
+     * @return the number of leases served by an idle browser
+     */
+    public long getReused() {
+        return reused.get();
+    }
+
+    /**
+     * 
+     * @return the number of browsers quit by the pool
+     */
+    public long getRetired() {
+        return retired.get();
+    }
+
+    /**
+     * 
+     * @param factory
+     *            the factory of the sessions
+     * @param options
+     *            the options of the sessions
+     * @return the number of idle browsers of the fingerprint of the options
+     */
+    public synchronized int getIdleCount(SessionFactory factory, Map<String, String> options) {
+        Deque<PooledDriver> drivers = idle.get(getFingerprint(factory, options));
+        return drivers == null ? 0 : drivers.size();
+    }
+
+    private static String getFingerprint(SessionFactory factory, Map<String, String> options) {
+        return factory.getClass().getName() + new TreeMap<String, String>(options);
+    }
+
+    private Deque<PooledDriver> getIdle(String fingerprint) {
+        Deque<PooledDriver> drivers = idle.get(fingerprint);
+        if (drivers == null) {
+            drivers = new ArrayDeque<PooledDriver>();
+            idle.put(fingerprint, drivers);
+        }
+        return drivers;
+    }
+
+    /**
+     * Wait for a permit to launch a browser, quitting an idle browser of
+     * another fingerprint if the limit is reached
+     */
+    private SessionAdmission.Permit acquire(SessionFactory factory, Map<String, String> options)
+            throws Exception {
+        SessionAdmission.Permit permit = admission.tryAcquire();
+        if (permit != null) {
+            return permit;
+        }
+        PooledDriver evicted = null;
+        synchronized (this) {
+            for (Deque<PooledDriver> drivers : idle.values()) {
+                if (!drivers.isEmpty()) {
+                    evicted = drivers.pollFirst();
+                    break;
+                }
+            }
+        }
+        if (evicted != null) {
+            retire(evicted);
+        }
+        return admission.acquire(SessionAdmission.getTimeout(factory, options));
+    }
+
+    private PooledDriver launch(SessionFactory factory, Map<String, String> options,
+            String fingerprint, SessionAdmission.Permit permit) throws Exception {
+        DesiredCapabilities capabilities = factory.createCapabilities(options);
+        WebDriver driver = factory.createInnerDriver(options, capabilities);
+        created.incrementAndGet();
+        return new PooledDriver(driver, fingerprint, permit);
+    }
+
+    /**
+     * Launch browsers in the background until enough are idle or starting, or
+     * no permit is free
+     */
+    private void refill(final SessionFactory factory, final Map<String, String> options,
+            final String fingerprint) {
+        int missing;
+        synchronized (this) {
+            if (shutdown) {
+                return;
+            }
+            Integer pending = starting.get(fingerprint);
+            Deque<PooledDriver> drivers = idle.get(fingerprint);
+            missing = size - (drivers == null ? 0 : drivers.size())
+                    - (pending == null ? 0 : pending);
+            if (missing <= 0) {
+                return;
+            }
+            starting.put(fingerprint, (pending == null ? 0 : pending) + missing);
+        }
+
+        for (int i = 0; i < missing; i++) {
+            final SessionAdmission.Permit permit = admission.tryAcquire();
+            if (permit == null) {
+                // Idle browsers must not keep sessions from being admitted
+                synchronized (this) {
+                    starting.put(fingerprint, starting.get(fingerprint) - (missing - i));
+                }
+                return;
+            }
+            try {
+                launcher.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        PooledDriver pooled = null;
+                        try {
+                            pooled = launch(factory, options, fingerprint, permit);
+                        } catch (Exception e) {
+                            logger.warn("Could not launch a browser for the session pool", e);
+                            admission.cancel(permit);
+                        }
+                        boolean kept = false;
+                        synchronized (SessionPool.this) {
+                            starting.put(fingerprint, starting.get(fingerprint) - 1);
+                            if (pooled != null && !shutdown) {
+                                getIdle(fingerprint).addLast(pooled);
+                                kept = true;
+                            }
+                        }
+                        if (pooled != null && !kept) {
+                            retire(pooled);
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // The pool was shut down meanwhile
+                admission.cancel(permit);
+                synchronized (this) {
+                    starting.put(fingerprint, starting.get(fingerprint) - (missing - i));
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Bring a browser back to a single blank window without cookies
+     * 
+     * @return false if the browser could not be reset
+     */
+    private boolean reset(WebDriver driver) {
+        try {
+            Set<String> handles = driver.getWindowHandles();
+            String first = handles.iterator().next();
+            for (String handle : handles) {
+                if (!handle.equals(first)) {
+                    driver.switchTo().window(handle);
+                    driver.close();
+                }
+            }
+            driver.switchTo().window(first);
+            driver.switchTo().defaultContent();
+            driver.manage().deleteAllCookies();
+            driver.get("about:blank");
+            return true;
+        } catch (Exception e) {
+            logger.debug("Could not reset a pooled browser", e);
+            return false;
+        }
+    }
+
+    private void retire(PooledDriver pooled) {
+        retired.incrementAndGet();
+        try {
+            pooled.driver.quit();
+        } catch (Exception e) {
+            logger.debug("Could not quit a pooled browser", e);
+        } finally {
+            admission.cancel(pooled.permit);
+        }
+    }
+
+    /**
+     * A browser of the pool
+     */
+    private final class PooledDriver {
+        private final WebDriver driver;
+        private final String fingerprint;
+        private final SessionAdmission.Permit permit;
+        private final long createdAt = System.currentTimeMillis();
+        private int uses = 0;
+
+        private PooledDriver(WebDriver driver, String fingerprint,
+                SessionAdmission.Permit permit) {
+            this.driver = driver;
+            this.fingerprint = fingerprint;
+            this.permit = permit;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() - createdAt > maxAge;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * (C) Copyright 2013 Java Test Automation Framework Contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.finra.jtaf.ewd.session;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.finra.jtaf.ewd.ExtWebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Process-wide view of the sessions created by the thread-local
+ * {@link SessionManager} instances. It hands out session IDs which are unique
+ * across threads, remembers the thread owning each session and when the
+ * session was last used, and closes sessions which can no longer be used:
+ * <ul>
+ * <li>sessions whose owner thread has died, which nothing can reach anymore;</li>
+ * <li>sessions idle for longer than the idle timeout, if one is set.</li>
+ * </ul>
+ * When the JVM shuts down, the sessions of dead threads are closed once more,
+ * so that their browsers do not outlive the tests. Sessions of threads still
+ * running are left to those threads.
+ */
+public final class SessionRegistry {
+
+    /**
+     * How often, in milliseconds, the registry looks for sessions to close
+     */
+    public static final long REAP_INTERVAL = 30000;
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionRegistry.class);
+
+    private static final SessionRegistry instance = new SessionRegistry();
+
+    private final Map<String, Registration> sessions = new ConcurrentHashMap<String, Registration>();
+
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    private volatile long idleTimeout = 0;
+
+    private ScheduledExecutorService reaper;
+
+    private SessionRegistry() {
+        Runtime.getRuntime().addShutdownHook(new Thread("session-registry-shutdown") {
+            @Override
+            public void run() {
+                reap(0);
+            }
+        });
+    }
+
+    /**
+     * 
+     * @return the registry of the JVM
+     */
+    public static SessionRegistry getInstance() {
+        return instance;
+    }
+
+    /**
+     * 
+     * @return a session ID which no other thread has been given
+     */
+    public String nextSessionId() {
+        return "custom_" + nextId.getAndIncrement();
+    }
+
+    /**
+     * Close sessions which have not been used for longer than the given time,
+     * even if their owner thread is alive
+     * 
+     * @param idleTimeout
+     *            the time in milliseconds, or 0 to only close the sessions of
+     *            dead threads
+     */
+    public void setIdleTimeout(long idleTimeout) {
+        if (idleTimeout < 0) {
+            throw new IllegalArgumentException("Idle timeout must not be negative: " + idleTimeout);
+        }
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * 
+     * @return the idle timeout in milliseconds, 0 if sessions are only closed
+     *         when their owner thread dies
+     */
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * Track a new session
+     * 
+     * @param sessionId
+     *            the ID of the session
+     * @param session
+     *            the session
+     * @param manager
+     *            the SessionManager holding the session
+     * @param owner
+     *            the thread of the manager
+     */
+    void register(String sessionId, ExtWebDriver session, SessionManager manager, Thread owner) {
+        sessions.put(sessionId, new Registration(session, manager, owner));
+        startReaper();
+    }
+
+    /**
+     * Stop tracking a session, once it has been closed or removed from its
+     * SessionManager
+     * 
+     * @param sessionId
+     *            the ID of the session
+     */
+    public void unregister(String sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    /**
+     * Record that a session has been used, so that it is not closed as idle
+     * 
+     * @param sessionId
+     *            the ID of the session
+     */
+    public void touch(String sessionId) {
+        Registration registration = sessions.get(sessionId);
+        if (registration != null) {
+            registration.lastUsed = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * 
+     * @return the registered sessions of all threads by ID
+     */
+    public Map<String, ExtWebDriver> getSessions() {
+        Map<String, ExtWebDriver> result = new HashMap<String, ExtWebDriver>();
+        for (Map.Entry<String, Registration> entry : sessions.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().session);
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * 
+     * @param sessionId
+     *            the ID of the session
+     * @return the thread owning the session, or null if the session is not
+     *         registered or its thread has been collected
+     */
+    public Thread getOwner(String sessionId) {
+        Registration registration = sessions.get(sessionId);
+        return registration == null ? null : registration.owner.get();
+    }
+
+    /**
+     * Close the sessions whose owner thread has died and, if an idle timeout
+     * is set, the sessions idle for longer. This runs every
+     * {@value #REAP_INTERVAL} ms while sessions are registered.
+     * 
+     * @return the IDs of the closed sessions
+     */
+    public List<String> reap() {
+        return reap(idleTimeout);
+    }
+
+    private List<String> reap(long timeout) {
+        List<String> reaped = new ArrayList<String>();
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, Registration> entry : sessions.entrySet()) {
+            Registration registration = entry.getValue();
+            Thread owner = registration.owner.get();
+            boolean orphaned = owner == null || !owner.isAlive();
+            boolean idle = timeout > 0 && now - registration.lastUsed > timeout;
+            if ((orphaned || idle) && sessions.remove(entry.getKey(), registration)) {
+                logger.info("Closing " + (orphaned ? "orphaned" : "idle") + " session "
+                        + entry.getKey());
+                registration.manager.removeSession(entry.getKey());
+                close(registration.session);
+                reaped.add(entry.getKey());
+            }
+        }
+        return reaped;
+    }
+
+    private synchronized void startReaper() {
+        if (reaper != null) {
+            return;
+        }
+        reaper = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "session-reaper");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        reaper.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    reap();
+                } catch (RuntimeException e) {
+                    logger.warn("Could not close unused sessions", e);
+                }
+            }
+        }, REAP_INTERVAL, REAP_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    private static void close(ExtWebDriver session) {
+        try {
+            session.close();
+        } catch (Exception e) {
+            logger.debug("Could not close session " + session.getSessionId(), e);
+        }
+    }
+
+    /**
+     * A session and the thread owning it
+     */
+    private static final class Registration {
+        private final ExtWebDriver session;
+        private final SessionManager manager;
+        private final WeakReference<Thread> owner;
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        private Registration(ExtWebDriver session, SessionManager manager, Thread owner) {
+            this.session = session;
+            this.manager = manager;
+            this.owner = new WeakReference<Thread>(owner);
+        }
+    }
+}
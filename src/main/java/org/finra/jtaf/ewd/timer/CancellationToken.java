@@ -0,0 +1,60 @@
+/*
+ * (C) Copyright 2013 Java Test Automation Framework Contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.finra.jtaf.ewd.timer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lets another thread, such as a test runner watchdog, stop the waits of a
+ * thread. Install it with {@link WaitContext#open(long, CancellationToken)};
+ * once {@link #cancel()} is called, sleeping waits wake up at once and every
+ * wait of the thread throws a {@link WaitCancelledException}.
+ */
+public class CancellationToken {
+
+    private final CountDownLatch cancelled = new CountDownLatch(1);
+
+    /**
+     * Cancel the waits using this token. Cancelling more than once has no
+     * further effect.
+     */
+    public void cancel() {
+        cancelled.countDown();
+    }
+
+    /**
+     * 
+     * @return {@code true} if {@link #cancel()} has been called
+     */
+    public boolean isCancelled() {
+        return cancelled.getCount() == 0;
+    }
+
+    /**
+     * Sleeps for the given time, waking up early if the token is cancelled
+     * 
+     * @param millis
+     *            the time to sleep in milliseconds
+     * @return {@code true} if the token is cancelled
+     * @throws InterruptedException
+     *             if the thread is interrupted while sleeping
+     */
+    public boolean sleep(long millis) throws InterruptedException {
+        return cancelled.await(millis, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * (C) Copyright 2013 Java Test Automation Framework Contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.finra.jtaf.ewd.timer;
+
+import java.util.Random;
+
+/**
+ * Decides how long a {@link WaitForConditionTimer} sleeps between two checks
+ * of its condition.
+ * <p>
+ * Policies can be configured with the client properties {@code pollingPolicy}
+ * ({@code fixed}, {@code exponential}, {@code jittered} or {@code fastFirst})
+ * and {@code pollingInterval} (milliseconds); see {@link #parse(String, String)}.
+ */
+public abstract class PollingPolicy {
+
+    /**
+     * The interval, in milliseconds, used when none is configured
+     */
+    public static final long DEFAULT_INTERVAL = 500;
+
+    /**
+     * The first interval, in milliseconds, of the exponential and fast-first
+     * policies
+     */
+    public static final long FAST_INTERVAL = 50;
+
+    private static final PollingPolicy DEFAULT = exponential(FAST_INTERVAL, 2, DEFAULT_INTERVAL);
+
+    /**
+     *
+     * @param iteration
+     *            the number of times the condition has been checked so far,
+     *            starting at 1
+     * @return the time to sleep, in milliseconds, before the next check
+     */
+    public abstract long getInterval(int iteration);
+
+    /**
+     *
+     * @return the policy used when none is configured: exponential from
+     *         {@value #FAST_INTERVAL} ms up to {@value #DEFAULT_INTERVAL} ms
+     */
+    public static PollingPolicy getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     *
+     * @param interval
+     *            the time to sleep between checks, in milliseconds
+     * @return a policy which always sleeps the same time
+     */
+    public static PollingPolicy fixed(final long interval) {
+        checkInterval(interval);
+        return new PollingPolicy() {
+            @Override
+            public long getInterval(int iteration) {
+                return interval;
+            }
+
+            @Override
+            public String toString() {
+                return "fixed(" + interval + ")";
+            }
+        };
+    }
+
+    /**
+     *
+     * @param initialInterval
+     *            the time to sleep after the first check, in milliseconds
+     * @param factor
+     *            the factor applied to the interval after each check
+     * @param maxInterval
+     *            the longest time to sleep, in milliseconds
+     * @return a policy which sleeps longer after each check, up to a cap
+     */
+    public static PollingPolicy exponential(final long initialInterval, final double factor,
+            final long maxInterval) {
+        checkInterval(initialInterval);
+        checkInterval(maxInterval);
+        if (factor < 1) {
+            throw new IllegalArgumentException("Factor must be at least 1: " + factor);
+        }
+        return new PollingPolicy() {
+            @Override
+            public long getInterval(int iteration) {
+                double interval = initialInterval * Math.pow(factor, Math.max(0, iteration - 1));
+                return (long) Math.min(interval, maxInterval);
+            }
+
+            @Override
+            public String toString() {
+                return "exponential(" + initialInterval + ", " + factor + ", " + maxInterval + ")";
+            }
+        };
+    }
+
+    /**
+     *
+     * @param interval
+     *            the average time to sleep between checks, in milliseconds
+     * @param jitter
+     *            the most the time may differ from the interval, in
+     *            milliseconds
+     * @return a policy which sleeps a random time around the interval, so that
+     *         parallel waits do not check the browser at the same time
+     */
+    public static PollingPolicy jittered(final long interval, final long jitter) {
+        checkInterval(interval);
+        checkInterval(jitter);
+        final Random random = new Random();
+        return new PollingPolicy() {
+            @Override
+            public long getInterval(int iteration) {
+                long offset = (long) (random.nextDouble() * (2 * jitter + 1)) - jitter;
+                return Math.max(0, interval + offset);
+            }
+
+            @Override
+            public String toString() {
+                return "jittered(" + interval + ", " + jitter + ")";
+            }
+        };
+    }
+
+    /**
+     *
+     * @param fastInterval
+     *            the time to sleep after each of the first checks, in
+     *            milliseconds
+     * @param fastIterations
+     *            the number of checks followed by the fast interval
+     * @param slowInterval
+     *            the time to sleep after the later checks, in milliseconds
+     * @return a policy which checks often at first, for conditions which are
+     *         met quickly, then slows down
+     */
+    public static PollingPolicy fastFirst(final long fastInterval, final int fastIterations,
+            final long slowInterval) {
+        checkInterval(fastInterval);
+        checkInterval(slowInterval);
+        return new PollingPolicy() {
+            @Override
+            public long getInterval(int iteration) {
+                return iteration <= fastIterations ? fastInterval : slowInterval;
+            }
+
+            @Override
+            public String toString() {
+                return "fastFirst(" + fastInterval + ", " + fastIterations + ", " + slowInterval
+                        + ")";
+            }
+        };
+    }
+
+    /**
+     * Builds a policy from the client properties
+     *
+     * @param name
+     *            fixed, exponential, jittered or fastFirst, case insensitive;
+     *            null for the default policy
+     * @param interval
+     *            the interval of a fixed policy, the cap of an exponential
+     *            policy, the average interval of a jittered policy (which
+     *            varies by half of it) or the slow interval of a fast-first
+     *            policy, in milliseconds; null for {@value #DEFAULT_INTERVAL}
+     * @return the policy
+     * @throws IllegalArgumentException
+     *             if the name or interval is not valid
+     */
+    public static PollingPolicy parse(String name, String interval) {
+        long millis = DEFAULT_INTERVAL;
+        if (interval != null && !interval.trim().isEmpty()) {
+            try {
+                millis = Long.parseLong(interval.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid polling interval: " + interval, e);
+            }
+        }
+
+        name = name == null ? "" : name.trim();
+        if (name.equalsIgnoreCase("fixed")) {
+            return fixed(millis);
+        } else if (name.isEmpty() || name.equalsIgnoreCase("exponential")) {
+            return exponential(Math.min(FAST_INTERVAL, millis), 2, millis);
+        } else if (name.equalsIgnoreCase("jittered")) {
+            return jittered(millis, millis / 2);
+        } else if (name.equalsIgnoreCase("fastFirst")) {
+            return fastFirst(Math.min(FAST_INTERVAL, millis), 5, millis);
+        }
+        throw new IllegalArgumentException("Unknown polling policy: " + name);
+    }
+
+    private static void checkInterval(long interval) {
+        if (interval < 0) {
+            throw new IllegalArgumentException("Interval must not be negative: " + interval);
+        }
+    }
+}
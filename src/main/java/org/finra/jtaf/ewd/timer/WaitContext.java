@@ -0,0 +1,180 @@
+/*
+ * (C) Copyright 2013 Java Test Automation Framework Contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.finra.jtaf.ewd.timer;
+
+import java.io.Closeable;
+
+import org.openqa.selenium.By;
+
+/**
+ * The absolute deadline and the {@link CancellationToken} that bound the
+ * waits of the current thread, on top of the timeout of each wait.
+ * <p>
+ * A context is opened for a block of code and closed when it ends, which
+ * restores the enclosing context:
+ * 
+ * <pre>
+ * WaitContext context = WaitContext.open(System.currentTimeMillis() + 60000, token);
+ * try {
+ *     // waits here end by the deadline, or as soon as the token is cancelled
+ * } finally {
+ *     context.close();
+ * }
+ * </pre>
+ * 
+ * A nested context can not extend the deadline of the enclosing one, and is
+ * cancelled with it.
+ */
+public final class WaitContext implements Closeable {
+
+    /**
+     * The deadline when none is set
+     */
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    private static final ThreadLocal<WaitContext> CURRENT = new ThreadLocal<WaitContext>();
+
+    private final WaitContext parent;
+    private final long deadline;
+    private final CancellationToken token;
+    private boolean closed = false;
+
+    private WaitContext(WaitContext parent, long deadline, CancellationToken token) {
+        this.parent = parent;
+        this.deadline = deadline;
+        this.token = token;
+    }
+
+    /**
+     * Bound the waits of the current thread until the returned context is
+     * closed
+     * 
+     * @param deadline
+     *            the time, in milliseconds since the epoch, by which waits
+     *            end, or {@link #NO_DEADLINE}
+     * @param token
+     *            the token which cancels the waits, or {@code null}
+     * @return the context, to be closed by the same thread
+     */
+    public static WaitContext open(long deadline, CancellationToken token) {
+        WaitContext parent = CURRENT.get();
+        if (parent != null) {
+            deadline = Math.min(deadline, parent.deadline);
+        }
+        WaitContext context = new WaitContext(parent, deadline, token);
+        CURRENT.set(context);
+        return context;
+    }
+
+    /**
+     * Restore the context which was current when this one was opened
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (CURRENT.get() == this) {
+            if (parent == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(parent);
+            }
+        }
+    }
+
+    /**
+     * 
+     * @return the deadline of the waits of the current thread, in milliseconds
+     *         since the epoch, or {@link #NO_DEADLINE}
+     */
+    public static long getDeadline() {
+        WaitContext context = CURRENT.get();
+        return context == null ? NO_DEADLINE : context.deadline;
+    }
+
+    /**
+     * 
+     * @param timeout
+     *            the timeout of a wait starting now, in milliseconds
+     * @return the time by which the wait must end: now plus the timeout, or
+     *         the deadline of the current thread if it is earlier
+     */
+    public static long getEndTime(long timeout) {
+        long now = System.currentTimeMillis();
+        long end = timeout > NO_DEADLINE - now ? NO_DEADLINE : now + timeout;
+        return Math.min(end, getDeadline());
+    }
+
+    /**
+     * 
+     * @return {@code true} if the thread is interrupted or a token of the
+     *         current context is cancelled
+     */
+    public static boolean isCancelled() {
+        if (Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+        for (WaitContext context = CURRENT.get(); context != null; context = context.parent) {
+            if (context.token != null && context.token.isCancelled()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 
+     * @param locator
+     *            the locator of the element being waited for, if any
+     * @throws WaitCancelledException
+     *             if the thread is interrupted or a token of the current
+     *             context is cancelled
+     */
+    public static void checkCancelled(By locator) throws WaitCancelledException {
+        if (isCancelled()) {
+            throw new WaitCancelledException("The wait was cancelled", locator);
+        }
+    }
+
+    /**
+     * Sleep for the given time, waking up early if the wait is cancelled
+     * 
+     * @param millis
+     *            the time to sleep in milliseconds
+     * @param locator
+     *            the locator of the element being waited for, if any
+     * @throws WaitCancelledException
+     *             if the thread is interrupted or a token of the current
+     *             context is cancelled
+     */
+    public static void sleep(long millis, By locator) throws WaitCancelledException {
+        checkCancelled(locator);
+        try {
+            WaitContext context = CURRENT.get();
+            if (context != null && context.token != null) {
+                context.token.sleep(millis);
+            } else {
+                Thread.sleep(millis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        checkCancelled(locator);
+    }
+}
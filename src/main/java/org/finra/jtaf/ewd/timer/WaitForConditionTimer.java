@@ -30,6 +30,10 @@ public class WaitForConditionTimer {
 
     private ITimerCallback timerCallback;
     private By locator;
+    private PollingPolicy pollingPolicy;
+
+    private long elapsedTime = -1;
+    private int iterations = 0;
 
     private final Logger logger = LoggerFactory.getLogger(WaitForConditionTimer.class.getPackage()
             .getName());
@@ -37,7 +41,8 @@ public class WaitForConditionTimer {
     /**
      * Constructs a {@code WaitForConditionTimer} with the given locator
      * pointing to an element and the given timerCallback holding a condition to
-     * be met.
+     * be met. The condition is checked following the default
+     * {@link PollingPolicy}.
      * 
      * @param locator
      *            the element locator to be used
@@ -45,8 +50,27 @@ public class WaitForConditionTimer {
      *            the method called to check the condition to be met
      */
     public WaitForConditionTimer(By locator, ITimerCallback timerCallback) {
+        this(locator, timerCallback, PollingPolicy.getDefault());
+    }
+
+    /**
+     * Constructs a {@code WaitForConditionTimer} with the given locator
+     * pointing to an element and the given timerCallback holding a condition to
+     * be met.
+     * 
+     * @param locator
+     *            the element locator to be used
+     * @param timerCallback
+     *            the method called to check the condition to be met
+     * @param pollingPolicy
+     *            decides how long to sleep between two checks of the
+     *            condition; the default policy is used if {@code null}
+     */
+    public WaitForConditionTimer(By locator, ITimerCallback timerCallback,
+            PollingPolicy pollingPolicy) {
         this.timerCallback = timerCallback;
         this.locator = locator;
+        this.pollingPolicy = pollingPolicy != null ? pollingPolicy : PollingPolicy.getDefault();
     }
 
     /**
@@ -67,37 +91,116 @@ public class WaitForConditionTimer {
 
     /**
      * Blocks for a given time, or until the associated condition is met. The
-     * associated condition is checked every half second.
+     * associated condition is checked as often as the {@link PollingPolicy}
+     * of the timer says.
      * <p>
-     * Only an {@link InterruptedException} will prematurely halt the waiting
-     * process.
+     * The wait also ends by the deadline of the {@link WaitContext} of the
+     * thread, and stops with a {@link WaitCancelledException} if the thread
+     * is interrupted or the context is cancelled.
      * 
      * @param waitTime
      *            the time to wait in milliseconds
      * @throws WidgetTimeoutException
      */
     public void waitUntil(long waitTime) throws WidgetTimeoutException {
+        if (!isConditionMet(waitTime)) {
+            throw new WidgetTimeoutException("Timed out performing action " + timerCallback,
+                    locator);
+        }
+    }
 
-        long currentTimeMillis = System.currentTimeMillis();
-        long maxRequestTimeout = waitTime;
+    /**
+     * Blocks until the given deadline, or until the associated condition is
+     * met
+     * 
+     * @param deadline
+     *            the time, in milliseconds since the epoch, by which the wait
+     *            ends
+     * @throws WidgetTimeoutException
+     * @see #waitUntil(long)
+     */
+    public void waitUntilDeadline(long deadline) throws WidgetTimeoutException {
+        waitUntil(Math.max(0, deadline - System.currentTimeMillis()));
+    }
 
-        long endTime = currentTimeMillis + maxRequestTimeout;
+    /**
+     * Blocks for a given time, or until the associated condition is met. The
+     * condition is checked at least once, even if the time is 0.
+     * 
+     * @param waitTime
+     *            the time to wait in milliseconds
+     * @return {@code true} if the condition was met in time
+     * @throws WaitCancelledException
+     *             if the thread is interrupted or its {@link WaitContext} is
+     *             cancelled
+     * @see #waitUntil(long)
+     */
+    public boolean isConditionMet(long waitTime) throws WaitCancelledException {
+        long startTime = System.currentTimeMillis();
+        long endTime = WaitContext.getEndTime(waitTime);
+        boolean met = false;
+        iterations = 0;
 
-        while (System.currentTimeMillis() < endTime) {
+        try {
+            while (true) {
+                WaitContext.checkCancelled(locator);
+                iterations++;
+                try {
+                    if (timerCallback.execute()) {
+                        met = true;
+                        return true;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    // ignore any other type of Exception and continue
+                    logger.debug(" Exception while waiting. " + "Ignoring and continuing to wait. ", e);
+                }
 
-            try {
-                if (timerCallback.execute())
-                    return;
-                Thread.sleep(500);
-            } catch (InterruptedException e1) {
-                throw new WidgetTimeoutException("The request has timed out", locator);
-            } catch (Exception e) {
-                // ignore any other type of Exception and continue
-                logger.debug(" Exception while waiting. " + "Ignoring and continuing to wait. ", e);
+                // Checking the time after the condition measures it more accurately
+                long remaining = endTime - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                WaitContext.sleep(Math.min(remaining, pollingPolicy.getInterval(iterations)),
+                        locator);
+            }
+        } finally {
+            elapsedTime = System.currentTimeMillis() - startTime;
+            logger.debug("{} {} after {} ms and {} checks", timerCallback, met ? "met" : "not met",
+                    elapsedTime, iterations);
+            WaitStatistics statistics = WaitStatistics.getInstance();
+            if (statistics.isEnabled()) {
+                statistics.record(locator, WaitStatistics.getCondition(timerCallback), iterations,
+                        elapsedTime, met);
             }
         }
+    }
 
-        throw new WidgetTimeoutException("Timed out performing action " + timerCallback, locator);
+    /**
+     * 
+     * @return the time, in milliseconds, the last wait took, or -1 if the timer
+     *         has not waited yet
+     */
+    public long getElapsedTime() {
+        return elapsedTime;
+    }
+
+    /**
+     * 
+     * @return the number of times the condition was checked during the last
+     *         wait
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * 
+     * @return the policy which decides how long to sleep between two checks
+     */
+    public PollingPolicy getPollingPolicy() {
+        return pollingPolicy;
     }
 
 }
@@ -0,0 +1,142 @@
+/*
+ * (C) Copyright 2013 Java Test Automation Framework Contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.finra.jtaf.ewd.timer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts wait times in log-linear buckets, in the manner of an HDR histogram:
+ * values below {@value #SUB_BUCKETS} have a bucket each and each power of two
+ * above is split into {@code SUB_BUCKETS / 2} buckets, so a percentile is
+ * reported within about 6% of the recorded value while the histogram stays a
+ * fixed array. Values are in milliseconds.
+ * <p>
+ * Recording is thread safe and does not lock.
+ */
+public final class WaitHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+
+    /**
+     * The values counted exactly
+     */
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 2) * (SUB_BUCKETS / 2);
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * 
+     * @param value
+     *            the time to record, in milliseconds; negative values count
+     *            as 0
+     */
+    public void record(long value) {
+        value = Math.max(0, value);
+        counts.incrementAndGet(getBucket(value));
+        count.incrementAndGet();
+        total.addAndGet(value);
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // another thread raised the max first; compare again
+        }
+    }
+
+    /**
+     * 
+     * @return the number of recorded values
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * 
+     * @return the sum of the recorded values, in milliseconds
+     */
+    public long getTotal() {
+        return total.get();
+    }
+
+    /**
+     * 
+     * @return the largest recorded value, in milliseconds
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * 
+     * @return the mean of the recorded values, or 0 if there is none
+     */
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) total.get() / n;
+    }
+
+    /**
+     * 
+     * @param percentile
+     *            the percentile, from 0 to 100
+     * @return the highest value of the bucket which holds the percentile,
+     *         capped at the largest recorded value, or 0 if there is none
+     */
+    public long getValueAtPercentile(double percentile) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * n));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(getHighestValue(bucket), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Values below {@value #SUB_BUCKETS} have a bucket each; above, the
+     * bucket is given by the highest bit and the {@code SUB_BUCKET_BITS} bits
+     * after it.
+     */
+    static int getBucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS + 1;
+        int subBucket = (int) (value >>> magnitude) - SUB_BUCKETS / 2;
+        return magnitude * (SUB_BUCKETS / 2) + SUB_BUCKETS / 2 + subBucket;
+    }
+
+    static long getHighestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int magnitude = (bucket - SUB_BUCKETS / 2) / (SUB_BUCKETS / 2);
+        long subBucket = (bucket - SUB_BUCKETS / 2) % (SUB_BUCKETS / 2) + SUB_BUCKETS / 2;
+        return ((subBucket + 1) << magnitude) - 1;
+    }
+}
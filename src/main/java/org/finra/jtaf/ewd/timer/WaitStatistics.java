@@ -0,0 +1,279 @@
+/*
+ * (C) Copyright 2013 Java Test Automation Framework Contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.finra.jtaf.ewd.timer;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.finra.jtaf.ewd.timer.WaitForConditionTimer.ITimerCallback;
+import org.openqa.selenium.By;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects the outcome of every wait, per locator and condition, to find the
+ * waits which dominate the run time of a suite. The statistics are logged
+ * when the JVM shuts down, listing the slowest and the most polled locators.
+ * <p>
+ * Collection is off by default and is turned on with the client property
+ * {@code waitStatistics}. When it is off, a wait only reads a flag.
+ */
+public final class WaitStatistics {
+
+    /**
+     * The number of locators listed in each part of the report
+     */
+    public static final int REPORT_SIZE = 10;
+
+    private static final Logger logger = LoggerFactory.getLogger(WaitStatistics.class);
+
+    private static final WaitStatistics INSTANCE = new WaitStatistics();
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+    private volatile boolean enabled = false;
+    private boolean shutdownHookAdded = false;
+
+    private WaitStatistics() {
+
+    }
+
+    /**
+     * 
+     * @return the statistics of this JVM
+     */
+    public static WaitStatistics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 
+     * @return true if waits are recorded
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turn the recording of waits on or off. The first time it is turned on,
+     * the report is set to be logged when the JVM shuts down.
+     * 
+     * @param enabled
+     *            true to record waits
+     */
+    public synchronized void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (enabled && !shutdownHookAdded) {
+            shutdownHookAdded = true;
+            Runtime.getRuntime().addShutdownHook(new Thread("wait-statistics-report") {
+                @Override
+                public void run() {
+                    if (!entries.isEmpty()) {
+                        logger.info(getReport(REPORT_SIZE));
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Record the outcome of a wait, if recording is on
+     * 
+     * @param locator
+     *            the locator of the element waited for, or null
+     * @param condition
+     *            the kind of condition, such as the name of the waiting method
+     * @param iterations
+     *            the number of times the condition was checked
+     * @param elapsedTime
+     *            the time the wait took, in milliseconds
+     * @param met
+     *            false if the wait timed out or was cancelled
+     */
+    public void record(By locator, String condition, int iterations, long elapsedTime,
+            boolean met) {
+        if (!enabled) {
+            return;
+        }
+        String locatorString = locator == null ? "" : locator.toString();
+        String key = condition + "\n" + locatorString;
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            Entry newEntry = new Entry(locatorString, condition);
+            entry = entries.putIfAbsent(key, newEntry);
+            if (entry == null) {
+                entry = newEntry;
+            }
+        }
+        entry.record(iterations, elapsedTime, met);
+    }
+
+    /**
+     * 
+     * @param callback
+     *            the condition of a wait
+     * @return the kind of condition: the name of the method which declares
+     *         the callback, such as {@code waitForElementPresent}, or else the
+     *         name of its class
+     */
+    public static String getCondition(ITimerCallback callback) {
+        Method method = callback.getClass().getEnclosingMethod();
+        if (method != null) {
+            return method.getName();
+        }
+        String name = callback.getClass().getSimpleName();
+        return name.isEmpty() ? callback.getClass().getName() : name;
+    }
+
+    /**
+     * 
+     * @return the statistics of each locator and condition recorded so far
+     */
+    public List<Entry> getEntries() {
+        return new ArrayList<Entry>(entries.values());
+    }
+
+    /**
+     * Forget the waits recorded so far
+     */
+    public void reset() {
+        entries.clear();
+    }
+
+    /**
+     * 
+     * @param size
+     *            the number of locators listed in each part
+     * @return the slowest locators by total wait time and the most polled
+     *         locators by total number of checks
+     */
+    public String getReport(int size) {
+        List<Entry> all = getEntries();
+        StringBuilder report = new StringBuilder("Wait statistics of ").append(all.size())
+                .append(" locators and conditions");
+
+        Collections.sort(all, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry a, Entry b) {
+                return compareLongs(b.getHistogram().getTotal(), a.getHistogram().getTotal());
+            }
+        });
+        report.append("\nSlowest waits:");
+        appendEntries(report, all, size);
+
+        Collections.sort(all, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry a, Entry b) {
+                return compareLongs(b.getIterations(), a.getIterations());
+            }
+        });
+        report.append("\nMost polled waits:");
+        appendEntries(report, all, size);
+        return report.toString();
+    }
+
+    private static void appendEntries(StringBuilder report, List<Entry> entries, int size) {
+        for (Entry entry : entries.subList(0, Math.min(size, entries.size()))) {
+            report.append("\n  ").append(entry);
+        }
+    }
+
+    private static int compareLongs(long a, long b) {
+        return a < b ? -1 : (a == b ? 0 : 1);
+    }
+
+    /**
+     * The waits recorded for one locator and condition
+     */
+    public static final class Entry {
+        private final String locator;
+        private final String condition;
+        private final WaitHistogram histogram = new WaitHistogram();
+        private final AtomicLong iterations = new AtomicLong();
+        private final AtomicLong timeouts = new AtomicLong();
+
+        private Entry(String locator, String condition) {
+            this.locator = locator;
+            this.condition = condition;
+        }
+
+        private void record(int checks, long elapsedTime, boolean met) {
+            histogram.record(elapsedTime);
+            iterations.addAndGet(checks);
+            if (!met) {
+                timeouts.incrementAndGet();
+            }
+        }
+
+        /**
+         * 
+         * @return the locator of the element waited for, or an empty string
+         */
+        public String getLocator() {
+            return locator;
+        }
+
+        /**
+         * 
+         * @return the kind of condition waited for
+         */
+        public String getCondition() {
+            return condition;
+        }
+
+        /**
+         * 
+         * @return the times of the waits, in milliseconds
+         */
+        public WaitHistogram getHistogram() {
+            return histogram;
+        }
+
+        /**
+         * 
+         * @return the number of times the condition was checked over all
+         *         waits
+         */
+        public long getIterations() {
+            return iterations.get();
+        }
+
+        /**
+         * 
+         * @return the number of waits which were not met
+         */
+        public long getTimeouts() {
+            return timeouts.get();
+        }
+
+        @Override
+        public String toString() {
+            return condition + (locator.isEmpty() ? "" : " " + locator) + ": "
+                    + histogram.getCount() + " waits, "
+                    + timeouts.get() + " not met, total " + histogram.getTotal() + " ms, p50 "
+                    + histogram.getValueAtPercentile(50) + " ms, p99 "
+                    + histogram.getValueAtPercentile(99) + " ms, max " + histogram.getMax()
+                    + " ms, " + iterations.get() + " checks";
+        }
+    }
+}
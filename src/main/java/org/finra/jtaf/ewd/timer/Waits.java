@@ -0,0 +1,364 @@
+/*
+ * (C) Copyright 2013 Java Test Automation Framework Contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.finra.jtaf.ewd.timer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.finra.jtaf.ewd.ExtWebDriver;
+import org.finra.jtaf.ewd.session.SessionManager;
+import org.finra.jtaf.ewd.timer.WaitForConditionTimer.ITimerCallback;
+import org.finra.jtaf.ewd.widget.IElement;
+
+/**
+ * Waits for many conditions at once. All pending conditions are checked on
+ * each tick of one {@link WaitForConditionTimer} against one deadline, so the
+ * total wait is bounded by the slowest condition rather than the sum of the
+ * waits.
+ * <p>
+ * Conditions on elements are built with {@link #present(IElement)},
+ * {@link #notPresent(IElement)}, {@link #visible(IElement)},
+ * {@link #notVisible(IElement)}, {@link #text(IElement)} and
+ * {@link #enabled(IElement)}; any {@link ITimerCallback} can be used as well.
+ * A condition which throws an {@code Exception} is considered not met.
+ * <p>
+ * Unless a policy is given, the waits poll with the policy of the current
+ * session of the thread, as configured by its client properties.
+ */
+public final class Waits {
+
+    private Waits() {
+
+    }
+
+    /**
+     * Blocks until every condition has been met, or the timeout expires. A
+     * condition which has been met is not checked again.
+     *
+     * @param timeout
+     *            the time to wait for all conditions in milliseconds
+     * @param conditions
+     *            the conditions
+     * @throws WidgetTimeoutException
+     *             if a condition is not met in time
+     */
+    public static void waitForAll(long timeout, ITimerCallback... conditions)
+            throws WidgetTimeoutException {
+        waitForAll(timeout, getSessionPollingPolicy(), conditions);
+    }
+
+    /**
+     * Blocks until every condition has been met, or the timeout expires. A
+     * condition which has been met is not checked again.
+     *
+     * @param timeout
+     *            the time to wait for all conditions in milliseconds
+     * @param pollingPolicy
+     *            decides how long to sleep between two ticks
+     * @param conditions
+     *            the conditions
+     * @throws WidgetTimeoutException
+     *             if a condition is not met in time
+     */
+    public static void waitForAll(long timeout, PollingPolicy pollingPolicy,
+            ITimerCallback... conditions) throws WidgetTimeoutException {
+        wait(new CompositeCondition(true, conditions), timeout, pollingPolicy);
+    }
+
+    /**
+     * Blocks until one of the conditions is met, or the timeout expires
+     *
+     * @param timeout
+     *            the time to wait in milliseconds
+     * @param conditions
+     *            the conditions
+     * @return the index of the first condition met
+     * @throws WidgetTimeoutException
+     *             if no condition is met in time
+     */
+    public static int waitForAny(long timeout, ITimerCallback... conditions)
+            throws WidgetTimeoutException {
+        return waitForAny(timeout, getSessionPollingPolicy(), conditions);
+    }
+
+    /**
+     * Blocks until one of the conditions is met, or the timeout expires
+     *
+     * @param timeout
+     *            the time to wait in milliseconds
+     * @param pollingPolicy
+     *            decides how long to sleep between two ticks
+     * @param conditions
+     *            the conditions
+     * @return the index of the first condition met
+     * @throws WidgetTimeoutException
+     *             if no condition is met in time
+     */
+    public static int waitForAny(long timeout, PollingPolicy pollingPolicy,
+            ITimerCallback... conditions) throws WidgetTimeoutException {
+        CompositeCondition condition = new CompositeCondition(false, conditions);
+        wait(condition, timeout, pollingPolicy);
+        return condition.getFirstMet();
+    }
+
+    /**
+     * Blocks until every element is present, or the timeout expires
+     *
+     * @param timeout
+     *            the time to wait for all elements in milliseconds
+     * @param elements
+     *            the elements
+     * @throws WidgetTimeoutException
+     *             if an element is not present in time
+     */
+    public static void waitForAllPresent(long timeout, IElement... elements)
+            throws WidgetTimeoutException {
+        ITimerCallback[] conditions = new ITimerCallback[elements.length];
+        for (int i = 0; i < elements.length; i++) {
+            conditions[i] = present(elements[i]);
+        }
+        waitForAll(timeout, conditions);
+    }
+
+    /**
+     * Blocks until one of the elements is present, or the timeout expires
+     *
+     * @param timeout
+     *            the time to wait in milliseconds
+     * @param elements
+     *            the elements
+     * @return the index of the first element found present
+     * @throws WidgetTimeoutException
+     *             if no element is present in time
+     */
+    public static int waitForAnyPresent(long timeout, IElement... elements)
+            throws WidgetTimeoutException {
+        ITimerCallback[] conditions = new ITimerCallback[elements.length];
+        for (int i = 0; i < elements.length; i++) {
+            conditions[i] = present(elements[i]);
+        }
+        return waitForAny(timeout, conditions);
+    }
+
+    /**
+     *
+     * @param element
+     *            the element
+     * @return a condition met when the element is present
+     */
+    public static ITimerCallback present(final IElement element) {
+        return new ElementCondition(element, "present") {
+            @Override
+            public boolean execute() throws Exception {
+                return element.isElementPresent();
+            }
+        };
+    }
+
+    /**
+     *
+     * @param element
+     *            the element
+     * @return a condition met when the element is not present
+     */
+    public static ITimerCallback notPresent(final IElement element) {
+        return new ElementCondition(element, "not present") {
+            @Override
+            public boolean execute() throws Exception {
+                return !element.isElementPresent();
+            }
+        };
+    }
+
+    /**
+     *
+     * @param element
+     *            the element
+     * @return a condition met when the element is present and displayed
+     */
+    public static ITimerCallback visible(final IElement element) {
+        return new ElementCondition(element, "visible") {
+            @Override
+            public boolean execute() throws Exception {
+                return element.isElementPresent() && element.getWebElement().isDisplayed();
+            }
+        };
+    }
+
+    /**
+     *
+     * @param element
+     *            the element
+     * @return a condition met when the element is present and not displayed
+     */
+    public static ITimerCallback notVisible(final IElement element) {
+        return new ElementCondition(element, "not visible") {
+            @Override
+            public boolean execute() throws Exception {
+                return !element.getWebElement().isDisplayed();
+            }
+        };
+    }
+
+    /**
+     *
+     * @param element
+     *            the element
+     * @return a condition met when the element has text
+     */
+    public static ITimerCallback text(final IElement element) {
+        return new ElementCondition(element, "have text") {
+            @Override
+            public boolean execute() throws Exception {
+                String text = element.getText();
+                return text != null && !text.equals("");
+            }
+        };
+    }
+
+    /**
+     *
+     * @param element
+     *            the element
+     * @return a condition met when the element is enabled
+     */
+    public static ITimerCallback enabled(final IElement element) {
+        return new ElementCondition(element, "enabled") {
+            @Override
+            public boolean execute() throws Exception {
+                return element.isEnabled();
+            }
+        };
+    }
+
+    private static void wait(CompositeCondition condition, long timeout,
+            PollingPolicy pollingPolicy) throws WidgetTimeoutException {
+        if (condition.conditions.length == 0) {
+            return;
+        }
+        WaitForConditionTimer timer = new WaitForConditionTimer(null, condition, pollingPolicy);
+        try {
+            timer.waitUntil(timeout);
+        } catch (WaitCancelledException e) {
+            throw e;
+        } catch (WidgetTimeoutException e) {
+            throw new WidgetTimeoutException("Timed out waiting for " + condition,
+                    condition.getPendingLocators());
+        }
+    }
+
+    /**
+     * 
+     * @return the polling policy of the current session, or the default policy
+     *         if the thread has no session
+     */
+    private static PollingPolicy getSessionPollingPolicy() {
+        ExtWebDriver session = SessionManager.getInstance().getCurrentSession(false);
+        return session != null ? session.getPollingPolicy() : PollingPolicy.getDefault();
+    }
+
+    /**
+     * A condition on one element, described by the element locator
+     */
+    private abstract static class ElementCondition implements ITimerCallback {
+        private final IElement element;
+        private final String description;
+
+        private ElementCondition(IElement element, String description) {
+            this.element = element;
+            this.description = description;
+        }
+
+        @Override
+        public String toString() {
+            return element.getByLocator() + " to be " + description;
+        }
+    }
+
+    /**
+     * Checks the pending conditions together on each tick
+     */
+    private static final class CompositeCondition implements ITimerCallback {
+        private final boolean all;
+        private final ITimerCallback[] conditions;
+        private final boolean[] met;
+        private int firstMet = -1;
+
+        private CompositeCondition(boolean all, ITimerCallback[] conditions) {
+            this.all = all;
+            this.conditions = conditions;
+            this.met = new boolean[conditions.length];
+        }
+
+        @Override
+        public boolean execute() {
+            boolean allMet = true;
+            for (int i = 0; i < conditions.length; i++) {
+                if (met[i]) {
+                    continue;
+                }
+                try {
+                    met[i] = conditions[i].execute();
+                } catch (InterruptedException e) {
+                    // the timer sees the flag and cancels the wait
+                    Thread.currentThread().interrupt();
+                    return false;
+                } catch (Exception e) {
+                    // not met yet
+                }
+                if (met[i] && !all) {
+                    firstMet = i;
+                    return true;
+                }
+                allMet = allMet && met[i];
+            }
+            return all && allMet;
+        }
+
+        private int getFirstMet() {
+            return firstMet;
+        }
+
+        private List<ITimerCallback> getPending() {
+            List<ITimerCallback> pending = new ArrayList<ITimerCallback>();
+            for (int i = 0; i < conditions.length; i++) {
+                if (!met[i]) {
+                    pending.add(conditions[i]);
+                }
+            }
+            return pending;
+        }
+
+        private String getPendingLocators() {
+            StringBuilder locators = new StringBuilder();
+            for (ITimerCallback condition : getPending()) {
+                if (condition instanceof ElementCondition) {
+                    if (locators.length() > 0) {
+                        locators.append(", ");
+                    }
+                    locators.append(((ElementCondition) condition).element.getByLocator());
+                }
+            }
+            return locators.toString();
+        }
+
+        @Override
+        public String toString() {
+            return (all ? "all of " : "any of ") + getPending();
+        }
+    }
+}
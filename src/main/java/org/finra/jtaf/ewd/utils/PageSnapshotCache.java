@@ -0,0 +1,294 @@
+/*
+ * (C) Copyright 2013 Java Test Automation Framework Contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.finra.jtaf.ewd.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.sax.SAXSource;
+
+import org.ccil.cowan.tagsoup.Parser;
+import org.finra.jtaf.ewd.ExtWebDriver;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+/**
+ * Holds the TagSoup DOM of the page (or frame) last parsed for each session,
+ * so that repeated Java XPath queries against an unchanged page do not fetch
+ * and parse the page source again.
+ * <p>
+ * A snapshot is identified by a document version computed in the browser: a
+ * token stamped on the document together with a counter of DOM mutations.
+ * When the browser can not provide one, or its MutationObserver does not
+ * report mutations, the url and page source are used
+ * instead, which still saves the parse. Each frame and window has its own
+ * document and so its own version; navigation through {@link ExtWebDriver}
+ * calls {@link #invalidate(ExtWebDriver)}.
+ * <p>
+ * The returned nodes are shared and must be treated as read-only.
+ */
+public final class PageSnapshotCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PageSnapshotCache.class);
+
+    private static final PageSnapshotCache INSTANCE = new PageSnapshotCache();
+
+    /**
+     * The number of documents (frames, windows) remembered per session
+     */
+    private static final int SNAPSHOTS_PER_SESSION = 4;
+
+    // Stamps the document once with a unique token and counts mutations from
+    // then on. takeRecords() picks up mutations whose callback has not run yet.
+    // The observer is only trusted if it reports a probe mutation (HtmlUnit's
+    // does not); the element count and markup length are added as well, in
+    // case a mutation is missed.
+    private static final String VERSION_SCRIPT = "var d = document;"
+            + "if (!d.__ewdSnapshotId) {"
+            + "  d.__ewdSnapshotId = new Date().getTime() + '-' + Math.random();"
+            + "  d.__ewdMutations = 0;"
+            + "  if (window.MutationObserver && d.documentElement) {"
+            + "    var o = new MutationObserver(function(r) { d.__ewdMutations += r.length; });"
+            + "    o.observe(d, {childList: true, subtree: true, attributes: true, characterData: true});"
+            + "    var probe = d.createComment('');"
+            + "    d.documentElement.appendChild(probe);"
+            + "    d.documentElement.removeChild(probe);"
+            + "    if (o.takeRecords().length > 0) { d.__ewdObserver = o; } else { o.disconnect(); }"
+            + "  }"
+            + "}"
+            + "if (!d.__ewdObserver) { return null; }"
+            + "d.__ewdMutations += d.__ewdObserver.takeRecords().length;"
+            + "return d.__ewdSnapshotId + ':' + d.__ewdMutations + ':'"
+            + "    + d.getElementsByTagName('*').length + ':' + d.documentElement.innerHTML.length;";
+
+    private final Map<ExtWebDriver, Map<String, Node>> snapshots = Collections
+            .synchronizedMap(new WeakHashMap<ExtWebDriver, Map<String, Node>>());
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private volatile boolean enabled = true;
+
+    private PageSnapshotCache() {
+
+    }
+
+    /**
+     * Obtain the process-wide instance of the cache.
+     *
+     * @return the PageSnapshotCache
+     */
+    public static PageSnapshotCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Turn the cache on or off. When off, every query parses the page source.
+     *
+     * @param enabled
+     *            true to reuse parsed pages
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            clear();
+        }
+    }
+
+    /**
+     *
+     * @return true if parsed pages are reused
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     *
+     * @return the number of queries answered from a parsed snapshot
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     *
+     * @return the number of queries which had to parse the page
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     *
+     * @return the fraction of queries answered from a parsed snapshot, or 0 if
+     *         there were no queries yet
+     */
+    public double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /**
+     * Forget all snapshots and reset the hit/miss counters
+     */
+    public void clear() {
+        snapshots.clear();
+        hits.set(0);
+        misses.set(0);
+    }
+
+    /**
+     * Forget the snapshots of a session, e.g. after it navigated
+     *
+     * @param ewd
+     *            the session
+     */
+    public void invalidate(ExtWebDriver ewd) {
+        if (ewd != null) {
+            snapshots.remove(ewd);
+        }
+    }
+
+    /**
+     * Get the parsed DOM of the page or frame currently selected in the
+     * session, parsing the page source only if it changed since the last call.
+     *
+     * @param ewd
+     *            the session
+     * @return the root node of the parsed page
+     * @throws Exception
+     */
+    public Node getDocument(ExtWebDriver ewd) throws Exception {
+        if (!enabled) {
+            misses.incrementAndGet();
+            return parse(ewd.getHtmlSource());
+        }
+
+        String version = getDocumentVersion(ewd);
+        String html = null;
+        if (version == null) {
+            html = ewd.getHtmlSource();
+            version = ewd.getWrappedDriver().getCurrentUrl() + '#' + html.length() + '#'
+                    + html.hashCode();
+        }
+
+        Map<String, Node> forSession;
+        synchronized (snapshots) {
+            forSession = snapshots.get(ewd);
+            if (forSession == null) {
+                forSession = Collections.synchronizedMap(new LinkedHashMap<String, Node>(
+                        SNAPSHOTS_PER_SESSION, 0.75f, true) {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, Node> eldest) {
+                        return size() > SNAPSHOTS_PER_SESSION;
+                    }
+                });
+                snapshots.put(ewd, forSession);
+            }
+        }
+
+        Node document = forSession.get(version);
+        if (document != null) {
+            hits.incrementAndGet();
+            return document;
+        }
+
+        misses.incrementAndGet();
+        if (html == null) {
+            html = ewd.getHtmlSource();
+        }
+        document = parse(html);
+        forSession.put(version, document);
+        return document;
+    }
+
+    /**
+     * Get a cheap version of the page or frame currently selected in the
+     * session. The version changes whenever the document is replaced or its
+     * DOM is modified.
+     *
+     * @param ewd
+     *            the session
+     * @return the document version, or null if the browser can not provide
+     *         one
+     */
+    public String getDocumentVersion(ExtWebDriver ewd) {
+        ewd.selectLastFrame();
+        return getVersion(ewd.getWrappedDriver());
+    }
+
+    /**
+     * Parse html the way the Java XPath queries always have: whitespace between
+     * tags is dropped and TagSoup builds a DOM without namespaces.
+     *
+     * @param html
+     *            the page source
+     * @return the root node of the parsed page
+     * @throws Exception
+     */
+    public static Node parse(String html) throws Exception {
+        html = html.replaceAll(">\\s+<", "><");
+        InputStream input = new ByteArrayInputStream(html.getBytes(Charset.forName("UTF-8")));
+
+        XMLReader reader = new Parser();
+        reader.setFeature(Parser.namespacesFeature, false);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+
+        DOMResult result = new DOMResult();
+        transformer.transform(new SAXSource(reader, new InputSource(input)), result);
+
+        return result.getNode();
+    }
+
+    /**
+     *
+     * @param wd
+     *            the wrapped driver
+     * @return the document version, or null if the browser can not provide
+     *         one
+     */
+    private String getVersion(WebDriver wd) {
+        if (!(wd instanceof JavascriptExecutor)) {
+            return null;
+        }
+        try {
+            Object version = ((JavascriptExecutor) wd).executeScript(VERSION_SCRIPT);
+            return version == null ? null : version.toString();
+        } catch (Exception e) {
+            logger.debug("Unable to determine the document version", e);
+            return null;
+        }
+    }
+}
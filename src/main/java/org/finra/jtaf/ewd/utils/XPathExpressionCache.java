@@ -0,0 +1,212 @@
+/*
+ * (C) Copyright 2013 Java Test Automation Framework Contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.finra.jtaf.ewd.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.namespace.QName;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+import org.w3c.dom.Node;
+
+/**
+ * A bounded cache of compiled XPath expressions used for the Java XPath
+ * queries against parsed pages (see {@link PageSnapshotCache}).
+ * <p>
+ * Expressions are keyed by the trimmed xpath string; the least recently used
+ * one is dropped once {@link #getMaxSize()} is reached. A compiled
+ * {@link XPathExpression} is not thread-safe, so evaluation of a given
+ * expression is serialized.
+ */
+public final class XPathExpressionCache {
+
+    private static final XPathExpressionCache INSTANCE = new XPathExpressionCache();
+
+    /**
+     * The default number of compiled expressions kept
+     */
+    public static final int DEFAULT_MAX_SIZE = 256;
+
+    private final Object lock = new Object();
+
+    private final LinkedHashMap<String, XPathExpression> expressions = new LinkedHashMap<String, XPathExpression>(
+            16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, XPathExpression> eldest) {
+            if (size() > maxSize) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private volatile int maxSize = DEFAULT_MAX_SIZE;
+
+    private XPathExpressionCache() {
+
+    }
+
+    /**
+     * Obtain the process-wide instance of the cache.
+     *
+     * @return the XPathExpressionCache
+     */
+    public static XPathExpressionCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Evaluate an xpath against a node, compiling it only the first time it
+     * is seen.
+     *
+     * @param xpath
+     *            the xpath to evaluate
+     * @param node
+     *            the context node
+     * @param returnType
+     *            one of the {@link javax.xml.xpath.XPathConstants}
+     * @return the result of the evaluation
+     * @throws XPathExpressionException
+     */
+    public Object evaluate(String xpath, Node node, QName returnType)
+            throws XPathExpressionException {
+        XPathExpression expression = getExpression(xpath);
+        synchronized (expression) {
+            return expression.evaluate(node, returnType);
+        }
+    }
+
+    /**
+     * Get the compiled form of an xpath.
+     *
+     * @param xpath
+     *            the xpath to compile
+     * @return the compiled expression; callers must synchronize on it while
+     *         evaluating
+     * @throws XPathExpressionException
+     */
+    public XPathExpression getExpression(String xpath) throws XPathExpressionException {
+        String key = xpath.trim();
+        synchronized (lock) {
+            XPathExpression expression = expressions.get(key);
+            if (expression != null) {
+                hits.incrementAndGet();
+                return expression;
+            }
+        }
+
+        misses.incrementAndGet();
+        XPathExpression expression = XPathFactory.newInstance().newXPath().compile(key);
+        synchronized (lock) {
+            XPathExpression existing = expressions.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            expressions.put(key, expression);
+        }
+        return expression;
+    }
+
+    /**
+     *
+     * @param maxSize
+     *            the number of compiled expressions to keep
+     */
+    public void setMaxSize(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("The maximum size must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     *
+     * @return the number of compiled expressions kept
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     *
+     * @return the number of compiled expressions currently held
+     */
+    public int size() {
+        synchronized (lock) {
+            return expressions.size();
+        }
+    }
+
+    /**
+     *
+     * @return the number of lookups answered by an already compiled expression
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     *
+     * @return the number of lookups which had to compile the expression
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     *
+     * @return the number of compiled expressions dropped to stay within the
+     *         maximum size
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     *
+     * @return the fraction of lookups answered by an already compiled
+     *         expression, or 0 if there were no lookups yet
+     */
+    public double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /**
+     * Drop all compiled expressions and reset the statistics
+     */
+    public void clear() {
+        synchronized (lock) {
+            expressions.clear();
+        }
+        hits.set(0);
+        misses.set(0);
+        evictions.set(0);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * (C) Copyright 2013 Java Test Automation Framework Contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.finra.jtaf.ewd.widget;
+
+/**
+ * The position, size and visibility of an element, with the scroll offsets
+ * and viewport of its window, read together at the time of
+ * {@link IElement#getGeometry()}. Coordinates are in CSS pixels.
+ */
+public final class ElementGeometry {
+
+    private final int x;
+    private final int y;
+    private final int width;
+    private final int height;
+    private final int scrollX;
+    private final int scrollY;
+    private final int viewportWidth;
+    private final int viewportHeight;
+    private final boolean displayed;
+
+    /**
+     * 
+     * @param x
+     *            the left of the element, relative to the page
+     * @param y
+     *            the top of the element, relative to the page
+     * @param width
+     *            the width of the element
+     * @param height
+     *            the height of the element
+     * @param scrollX
+     *            the horizontal scroll offset of the window
+     * @param scrollY
+     *            the vertical scroll offset of the window
+     * @param viewportWidth
+     *            the width of the viewport of the window
+     * @param viewportHeight
+     *            the height of the viewport of the window
+     * @param displayed
+     *            whether the element is displayed
+     */
+    public ElementGeometry(int x, int y, int width, int height, int scrollX, int scrollY,
+            int viewportWidth, int viewportHeight, boolean displayed) {
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.scrollX = scrollX;
+        this.scrollY = scrollY;
+        this.viewportWidth = viewportWidth;
+        this.viewportHeight = viewportHeight;
+        this.displayed = displayed;
+    }
+
+    /**
+     * 
+     * @return the left of the element, relative to the page
+     */
+    public int getX() {
+        return x;
+    }
+
+    /**
+     * 
+     * @return the top of the element, relative to the page
+     */
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * 
+     * @return the width of the element
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * 
+     * @return the height of the element
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * 
+     * @return the horizontal scroll offset of the window
+     */
+    public int getScrollX() {
+        return scrollX;
+    }
+
+    /**
+     * 
+     * @return the vertical scroll offset of the window
+     */
+    public int getScrollY() {
+        return scrollY;
+    }
+
+    /**
+     * 
+     * @return the width of the viewport of the window
+     */
+    public int getViewportWidth() {
+        return viewportWidth;
+    }
+
+    /**
+     * 
+     * @return the height of the viewport of the window
+     */
+    public int getViewportHeight() {
+        return viewportHeight;
+    }
+
+    /**
+     * 
+     * @return true if the element is displayed: neither it nor an ancestor is
+     *         hidden by its style
+     */
+    public boolean isDisplayed() {
+        return displayed;
+    }
+
+    /**
+     * 
+     * @return true if the whole element is inside the viewport
+     */
+    public boolean isInViewport() {
+        int relX = x - scrollX;
+        int relY = y - scrollY;
+        return relX >= 0 && relY >= 0 && relX + width <= viewportWidth
+                && relY + height <= viewportHeight;
+    }
+
+    @Override
+    public String toString() {
+        return "ElementGeometry [x=" + x + ", y=" + y + ", width=" + width + ", height=" + height
+                + ", scrollX=" + scrollX + ", scrollY=" + scrollY + ", viewportWidth="
+                + viewportWidth + ", viewportHeight=" + viewportHeight + ", displayed="
+                + displayed + "]";
+    }
+}
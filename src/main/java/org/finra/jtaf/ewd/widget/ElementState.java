@@ -0,0 +1,100 @@
+/*
+ * (C) Copyright 2013 Java Test Automation Framework Contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.finra.jtaf.ewd.widget;
+
+import org.openqa.selenium.By;
+
+/**
+ * The state of an element at the time it was queried with
+ * {@link org.finra.jtaf.ewd.ExtWebDriver#getElementStates(java.util.List)}
+ */
+public final class ElementState {
+
+    private final By locator;
+    private final boolean present;
+    private final boolean visible;
+    private final boolean enabled;
+    private final String text;
+
+    /**
+     * 
+     * @param locator
+     *            the locator of the element
+     * @param present
+     *            whether the element is present
+     * @param visible
+     *            whether the element is displayed
+     * @param enabled
+     *            whether the element is enabled
+     * @param text
+     *            the visible text of the element, or null if it is not present
+     */
+    public ElementState(By locator, boolean present, boolean visible, boolean enabled,
+            String text) {
+        this.locator = locator;
+        this.present = present;
+        this.visible = visible;
+        this.enabled = enabled;
+        this.text = text;
+    }
+
+    /**
+     * 
+     * @return the locator of the element
+     */
+    public By getByLocator() {
+        return locator;
+    }
+
+    /**
+     * 
+     * @return true if the element is present
+     */
+    public boolean isPresent() {
+        return present;
+    }
+
+    /**
+     * 
+     * @return true if the element is displayed
+     */
+    public boolean isVisible() {
+        return visible;
+    }
+
+    /**
+     * 
+     * @return true if the element is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 
+     * @return the visible text of the element, or null if it is not present
+     */
+    public String getText() {
+        return text;
+    }
+
+    @Override
+    public String toString() {
+        return "ElementState [locator=" + locator + ", present=" + present + ", visible="
+                + visible + ", enabled=" + enabled + ", text=" + text + "]";
+    }
+}
@@ -125,6 +125,16 @@ public interface IElement {
      * @throws WidgetException
      */
     boolean isWithinBoundsOfWindow() throws WidgetException;
+
+    /**
+     * Implementing this method would allow for reading the position, size and
+     * visibility of an element, and the scroll offsets and viewport of its
+     * window, at once
+     * 
+     * @return the geometry of the element
+     * @throws WidgetException
+     */
+    ElementGeometry getGeometry() throws WidgetException;
     
     /**
      * Implementing this method would allow for the test to wait until the
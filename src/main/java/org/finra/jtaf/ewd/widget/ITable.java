@@ -16,6 +16,7 @@
  */
 package org.finra.jtaf.ewd.widget;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -103,4 +104,24 @@ public interface ITable extends IInteractiveElement {
      * @throws WidgetException
      */
     int getRowNumber(Map<String, String> item) throws WidgetException;
+
+    /**
+     * Implementing this method would allow for getting the text of a single
+     * row without reading the rest of the table
+     * 
+     * @param rowNumber
+     *            - the desired row in the table, starting at 1
+     * @return the text of the cells of the row
+     * @throws WidgetException
+     */
+    String[] row(int rowNumber) throws WidgetException;
+
+    /**
+     * Implementing this method would allow for going through the rows of a
+     * table without holding all of them at once
+     * 
+     * @return an iterator over the text of the cells of each row
+     * @throws WidgetException
+     */
+    Iterator<String[]> rows() throws WidgetException;
 }
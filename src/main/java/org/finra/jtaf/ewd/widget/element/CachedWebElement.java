@@ -0,0 +1,263 @@
+/*
+ * (C) Copyright 2013 Java Test Automation Framework Contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.finra.jtaf.ewd.widget.element;
+
+import java.util.List;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.interactions.internal.Coordinates;
+import org.openqa.selenium.internal.Locatable;
+import org.openqa.selenium.internal.WrapsElement;
+
+/**
+ * A {@link WebElement} cached by an {@link Element}. When the wrapped element
+ * has gone stale, the element is found again through its locator and the call
+ * is repeated once.
+ * <p>
+ * Drivers unwrap {@link WrapsElement}s passed to scripts, so the cached
+ * element can be used wherever a WebElement is expected.
+ */
+final class CachedWebElement implements WebElement, WrapsElement, Locatable {
+
+    private final Element element;
+    private volatile WebElement delegate;
+
+    /**
+     * 
+     * @param element
+     *            the element which finds the WebElement again
+     * @param delegate
+     *            the WebElement found
+     */
+    CachedWebElement(Element element, WebElement delegate) {
+        this.element = element;
+        this.delegate = delegate;
+    }
+
+    /**
+     * Find the element again after the wrapped element went stale
+     * 
+     * @return the element found
+     * @throws org.openqa.selenium.NoSuchElementException
+     *             if the element is no longer present
+     */
+    private WebElement refind() {
+        delegate = element.refindElement();
+        return delegate;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.openqa.selenium.internal.WrapsElement#getWrappedElement()
+     */
+    @Override
+    public WebElement getWrappedElement() {
+        return delegate;
+    }
+
+    @Override
+    public void click() {
+        try {
+            delegate.click();
+        } catch (StaleElementReferenceException e) {
+            refind().click();
+        }
+    }
+
+    @Override
+    public void submit() {
+        try {
+            delegate.submit();
+        } catch (StaleElementReferenceException e) {
+            refind().submit();
+        }
+    }
+
+    @Override
+    public void sendKeys(CharSequence... keysToSend) {
+        try {
+            delegate.sendKeys(keysToSend);
+        } catch (StaleElementReferenceException e) {
+            refind().sendKeys(keysToSend);
+        }
+    }
+
+    @Override
+    public void clear() {
+        try {
+            delegate.clear();
+        } catch (StaleElementReferenceException e) {
+            refind().clear();
+        }
+    }
+
+    @Override
+    public String getTagName() {
+        try {
+            return delegate.getTagName();
+        } catch (StaleElementReferenceException e) {
+            return refind().getTagName();
+        }
+    }
+
+    @Override
+    public String getAttribute(String name) {
+        try {
+            return delegate.getAttribute(name);
+        } catch (StaleElementReferenceException e) {
+            return refind().getAttribute(name);
+        }
+    }
+
+    @Override
+    public boolean isSelected() {
+        try {
+            return delegate.isSelected();
+        } catch (StaleElementReferenceException e) {
+            return refind().isSelected();
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        try {
+            return delegate.isEnabled();
+        } catch (StaleElementReferenceException e) {
+            return refind().isEnabled();
+        }
+    }
+
+    @Override
+    public String getText() {
+        try {
+            return delegate.getText();
+        } catch (StaleElementReferenceException e) {
+            return refind().getText();
+        }
+    }
+
+    @Override
+    public List<WebElement> findElements(By by) {
+        try {
+            return delegate.findElements(by);
+        } catch (StaleElementReferenceException e) {
+            return refind().findElements(by);
+        }
+    }
+
+    @Override
+    public WebElement findElement(By by) {
+        try {
+            return delegate.findElement(by);
+        } catch (StaleElementReferenceException e) {
+            return refind().findElement(by);
+        }
+    }
+
+    @Override
+    public boolean isDisplayed() {
+        try {
+            return delegate.isDisplayed();
+        } catch (StaleElementReferenceException e) {
+            return refind().isDisplayed();
+        }
+    }
+
+    @Override
+    public Point getLocation() {
+        try {
+            return delegate.getLocation();
+        } catch (StaleElementReferenceException e) {
+            return refind().getLocation();
+        }
+    }
+
+    @Override
+    public Dimension getSize() {
+        try {
+            return delegate.getSize();
+        } catch (StaleElementReferenceException e) {
+            return refind().getSize();
+        }
+    }
+
+    @Override
+    public Rectangle getRect() {
+        try {
+            return delegate.getRect();
+        } catch (StaleElementReferenceException e) {
+            return refind().getRect();
+        }
+    }
+
+    @Override
+    public String getCssValue(String propertyName) {
+        try {
+            return delegate.getCssValue(propertyName);
+        } catch (StaleElementReferenceException e) {
+            return refind().getCssValue(propertyName);
+        }
+    }
+
+    @Override
+    public <X> X getScreenshotAs(OutputType<X> target) {
+        try {
+            return delegate.getScreenshotAs(target);
+        } catch (StaleElementReferenceException e) {
+            return refind().getScreenshotAs(target);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.openqa.selenium.internal.Locatable#getCoordinates()
+     */
+    @Override
+    public Coordinates getCoordinates() {
+        try {
+            return ((Locatable) delegate).getCoordinates();
+        } catch (StaleElementReferenceException e) {
+            return ((Locatable) refind()).getCoordinates();
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof WrapsElement) {
+            obj = ((WrapsElement) obj).getWrappedElement();
+        }
+        return delegate.equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return delegate.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+}
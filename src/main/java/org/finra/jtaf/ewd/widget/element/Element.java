@@ -16,20 +16,12 @@
  */
 package org.finra.jtaf.ewd.widget.element;
 
-import java.io.ByteArrayInputStream;
-import java.io.InputStream;
-import java.nio.charset.Charset;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
 
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMResult;
-import javax.xml.transform.sax.SAXSource;
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathFactory;
 
-import org.ccil.cowan.tagsoup.Parser;
 import org.finra.jtaf.ewd.ExtWebDriver;
 import org.finra.jtaf.ewd.HighlightProvider;
 import org.finra.jtaf.ewd.TimeOutException;
@@ -37,8 +29,12 @@ import org.finra.jtaf.ewd.session.SessionManager;
 import org.finra.jtaf.ewd.timer.WaitForConditionTimer;
 import org.finra.jtaf.ewd.timer.WaitForConditionTimer.ITimerCallback;
 import org.finra.jtaf.ewd.timer.WidgetTimeoutException;
+import org.finra.jtaf.ewd.utils.PageSnapshotCache;
+import org.finra.jtaf.ewd.utils.XPathExpressionCache;
+import org.finra.jtaf.ewd.widget.ElementGeometry;
 import org.finra.jtaf.ewd.widget.IElement;
 import org.finra.jtaf.ewd.widget.WidgetException;
+import org.finra.jtaf.ewd.widget.element.EventDrivenWait.Condition;
 import org.openqa.selenium.By;
 import org.openqa.selenium.Dimension;
 import org.openqa.selenium.JavascriptExecutor;
@@ -50,8 +46,6 @@ import org.openqa.selenium.WebElement;
 import org.openqa.selenium.internal.Locatable;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
-import org.xml.sax.XMLReader;
 
 /**
  * This is the base class for any element
@@ -60,7 +54,30 @@ public class Element implements IElement {
 	
     private ExtWebDriver gd;
 	private final By locator;
-	private static final long DEFAULT_INTERVAL = 100;
+
+	// Reads the rectangle of the element, the scroll offsets and viewport of
+	// the window and the visibility of the element by style
+	private static final String GEOMETRY_SCRIPT = "var e = arguments[0], w = window, d = document,"
+			+ "    r = e.getBoundingClientRect(),"
+			+ "    root = d.documentElement || {}, body = d.body || {},"
+			+ "    sx = w.pageXOffset != null ? w.pageXOffset : (root.scrollLeft || body.scrollLeft || 0),"
+			+ "    sy = w.pageYOffset != null ? w.pageYOffset : (root.scrollTop || body.scrollTop || 0);"
+			+ InPageLocator.TEXT_FUNCTIONS
+			+ "return [r.left + sx, r.top + sy, r.width, r.height, sx, sy,"
+			+ "    w.innerWidth || root.clientWidth || 0, w.innerHeight || root.clientHeight || 0, shown(e)];";
+
+	private static final String HAS_TEXT_SCRIPT = InPageLocator.TEXT_FUNCTIONS
+			+ "return text(arguments[0]).indexOf(arguments[1]) >= 0;";
+
+	private static final String CHILD_TEXTS_SCRIPT = InPageLocator.TEXT_FUNCTIONS
+			+ "var children = arguments[0].children, texts = [];"
+			+ "for (var i = 0; i < children.length; i++) { texts.push(text(children[i])); }"
+			+ "return texts;";
+
+	private CachedWebElement cachedElement;
+	private long cachedContextVersion;
+	private final AtomicLong cacheHits = new AtomicLong();
+	private final AtomicLong cacheMisses = new AtomicLong();
 
 	protected enum HIGHLIGHT_MODES {
 		FIND, GET, PUT, NONE
@@ -131,15 +148,14 @@ public class Element implements IElement {
 	private boolean isElementPresent_internal() throws WidgetException {
 		try {
 			try {
-			    final boolean isPotentiallyXpathWithLocator =
-			            (locator instanceof EByFirstMatching) || (locator instanceof EByXpath);  
+			    final boolean isPotentiallyXpathWithLocator = isPotentiallyXpath();
 				if (isPotentiallyXpathWithLocator && isElementPresentJavaXPath())
 					return true;
 			} catch (Exception e) {
 				// Continue
 			}
 
-			findElement();
+			findElement(true, false);
 			return true;
 		} catch (NoSuchElementException e) {
 			return false;
@@ -154,22 +170,18 @@ public class Element implements IElement {
 	 */
 	@Override
 	public boolean isElementPresent(long timeout) throws WidgetException {
-		final long start = System.currentTimeMillis();
-		final long end = start + timeout;
-		while (true) {
-			if (isElementPresent()) {
-				return true;
-			}
+		return isConditionMet(new ITimerCallback() {
 
-			// Putting the condition here will measure the time more accurately.
-			if (System.currentTimeMillis() >= end) {
-				return false;
+			@Override
+			public boolean execute() throws WidgetException {
+				return isElementPresent();
 			}
-			try {
-				Thread.sleep(250);
-			} catch (InterruptedException e) {
+
+			@Override
+			public String toString() {
+				return "Checking whether element with locator " + locator + " is present";
 			}
-		}
+		}, timeout);
 	}
 
 	/*
@@ -182,13 +194,12 @@ public class Element implements IElement {
 	@Override
 	public boolean isElementPresent(boolean isJavaXPath) throws WidgetException {
 		try {
-            final boolean isPotentiallyXpathWithLocator =
-                    (locator instanceof EByFirstMatching) || (locator instanceof EByXpath);  
+            final boolean isPotentiallyXpathWithLocator = isPotentiallyXpath();
 
 			if (isJavaXPath && isPotentiallyXpathWithLocator) {
 				return isElementPresentJavaXPath();
 			} else {
-				findElement();
+				findElement(true, false);
 				return true;
 			}
 		} catch (NoSuchElementException e) {
@@ -198,6 +209,20 @@ public class Element implements IElement {
 		}
 	}
 
+	/**
+	 * Determine whether the locator could be evaluated as an XPath at all, so
+	 * that the page source is not fetched and parsed for locators such as ids
+	 * 
+	 * @return true if the Java XPath check is worth trying
+	 */
+	private boolean isPotentiallyXpath() {
+		if (locator instanceof EByXpath) {
+			return true;
+		}
+		return (locator instanceof EByFirstMatching)
+				&& LocatorClassifier.isXPathCandidate(getLocator());
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -206,7 +231,8 @@ public class Element implements IElement {
 	@Override
 	public boolean isElementVisible() throws WidgetException {
 		try {
-			return isVisible() && (getLocationX() > 0) && (getLocationY() > 0);
+			ElementGeometry geometry = getGeometry();
+			return geometry.isDisplayed() && geometry.getX() > 0 && geometry.getY() > 0;
 		} catch (Exception e) {
 			throw new WidgetException("Error while determining whether element is visible", locator, e);
 		}
@@ -220,18 +246,18 @@ public class Element implements IElement {
 	 */
 	@Override
 	public boolean isElementVisible(long timeout) throws WidgetException {
-		long start = System.currentTimeMillis();
-		long end = start + timeout;
-		while (System.currentTimeMillis() < end) {
-			if (isElementPresent() && isVisible()) {
-				return true;
+		return isConditionMet(new ITimerCallback() {
+
+			@Override
+			public boolean execute() throws WidgetException {
+				return isElementVisible();
 			}
-			try {
-				Thread.sleep(250);
-			} catch (InterruptedException e) {
+
+			@Override
+			public String toString() {
+				return "Checking whether element with locator " + locator + " is visible";
 			}
-		}
-		return false;
+		}, timeout);
 	}
 
 	/**
@@ -251,34 +277,52 @@ public class Element implements IElement {
 	 * @throws WidgetException
 	 */
 	public boolean isWithinBoundsOfWindow() throws WidgetException {
-		
-		JavascriptExecutor js = ((JavascriptExecutor) getGUIDriver().getWrappedDriver());
-		
-		// execute javascript to get scroll values
-		Object top = js.executeScript("return document.body.scrollTop;");
-		Object left = js.executeScript("return document.body.scrollLeft;");
-		
-		int scrollTop;
-		int scrollLeft;
+		return getGeometry().isInViewport();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.finra.jtaf.ewd.widget.IElement#getGeometry()
+	 */
+	@Override
+	public ElementGeometry getGeometry() throws WidgetException {
+		WebElement webElement;
 		try {
-			scrollTop = Integer.parseInt(top+"");
-			scrollLeft = Integer.parseInt(left+"");
+			webElement = findElement();
+		} catch (Exception e) {
+			throw new WidgetException("Error while fetching the geometry of the element", locator, e);
 		}
-		catch(NumberFormatException e) {
-			throw new WidgetException("There was an error parsing the scroll values from the page", getByLocator());
+
+		WebDriver wd = getGUIDriver().getWrappedDriver();
+		Object result = null;
+		if (wd instanceof JavascriptExecutor) {
+			try {
+				result = ((JavascriptExecutor) wd).executeScript(GEOMETRY_SCRIPT, webElement);
+			} catch (Exception e) {
+				throw new WidgetException("Error while fetching the geometry of the element", locator, e);
+			}
+		}
+		if (result instanceof List && ((List<?>) result).size() == 9) {
+			List<?> values = (List<?>) result;
+			int[] numbers = new int[8];
+			for (int i = 0; i < numbers.length; i++) {
+				numbers[i] = values.get(i) instanceof Number ? ((Number) values.get(i)).intValue() : 0;
+			}
+			return new ElementGeometry(numbers[0], numbers[1], numbers[2], numbers[3], numbers[4],
+					numbers[5], numbers[6], numbers[7], Boolean.TRUE.equals(values.get(8)));
+		}
+
+		// The driver can not run scripts; the scroll offsets are unknown
+		try {
+			Point location = webElement.getLocation();
+			Dimension size = webElement.getSize();
+			Dimension window = wd.manage().window().getSize();
+			return new ElementGeometry(location.getX(), location.getY(), size.getWidth(),
+					size.getHeight(), 0, 0, window.getWidth(), window.getHeight(), webElement.isDisplayed());
+		} catch (Exception e) {
+			throw new WidgetException("Error while fetching the geometry of the element", locator, e);
 		}
-		
-		// calculate bounds
-		Dimension dim = getGUIDriver().getWrappedDriver().manage().window().getSize();
-		int windowWidth = dim.getWidth();
-		int windowHeight = dim.getHeight();
-		int x = ((Locatable)getWebElement()).getCoordinates().onPage().getX();
-		int y = ((Locatable)getWebElement()).getCoordinates().onPage().getY();
-		int relX = x - scrollLeft;
-		int relY = y - scrollTop;
-		return relX + findElement().getSize().getWidth() <= windowWidth && 
-				relY + findElement().getSize().getHeight() <= windowHeight && 
-					relX >= 0 && relY >= 0;
 	}
 
 	/*
@@ -305,7 +349,7 @@ public class Element implements IElement {
 	@Override
 	public void waitForElementPresent(long time) throws WidgetException {
 		try {
-			waitForCommand(new ITimerCallback() {
+			waitForCommand(Condition.PRESENT, null, null, new ITimerCallback() {
 
 				@Override
 				public boolean execute() {
@@ -344,7 +388,7 @@ public class Element implements IElement {
 	 */
 	public void waitForElementNotPresent(final long time) throws WidgetException {
 		try {
-			waitForCommand(new ITimerCallback() {
+			waitForCommand(Condition.NOT_PRESENT, null, null, new ITimerCallback() {
 
 				@Override
 				public boolean execute() throws WidgetException {
@@ -380,7 +424,7 @@ public class Element implements IElement {
 	 */
 	public void waitForVisible(final long time) throws WidgetException {
 		try {
-			waitForCommand(new ITimerCallback() {
+			waitForCommand(Condition.VISIBLE, null, null, new ITimerCallback() {
 
 				@Override
 				public boolean execute() throws WidgetException {
@@ -416,7 +460,7 @@ public class Element implements IElement {
 	 */
 	public void waitForNotVisible(final long time) throws WidgetException {
 		try {
-			waitForCommand(new ITimerCallback() {
+			waitForCommand(Condition.NOT_VISIBLE, null, null, new ITimerCallback() {
 
 				@Override
 				public boolean execute() throws WidgetException {
@@ -535,6 +579,28 @@ public class Element implements IElement {
 		gd = guiDriver;
 	}
 
+	/**
+	 * Run a user interaction with the interaction lock of the session held and
+	 * the browser focused, so that it does not interleave with the
+	 * interactions of other sessions sharing the lock
+	 * 
+	 * @param interaction
+	 *            the interaction
+	 * @return the result of the interaction
+	 * @throws Exception
+	 *             any exception thrown by the interaction
+	 */
+	protected final <T> T interact(final Callable<T> interaction) throws Exception {
+		final ExtWebDriver driver = getGUIDriver();
+		return driver.getInteractionLock().run(new Callable<T>() {
+			@Override
+			public T call() throws Exception {
+				driver.focus();
+				return interaction.call();
+			}
+		});
+	}
+
 	/**
 	 * Get the WebDriver object to interact with the UI elements
 	 * 
@@ -570,15 +636,13 @@ public class Element implements IElement {
 	 */
 	public boolean hasText(String text) throws WidgetException {
 		try {
-			Element element = new Element(getByLocator());
-			List<WebElement> childElements = element.getWebElement().findElements(By.xpath(".//*"));
-			for (WebElement we : childElements) {
-				if (we.getText().contains(text)) {
-					return true;
-				}
+			WebElement webElement = findElement();
+			Object result = evalScript(HAS_TEXT_SCRIPT, webElement, text);
+			if (result instanceof Boolean) {
+				return (Boolean) result;
 			}
 
-			return false;
+			return webElement.getText().contains(text);
 		} catch (Exception e2) {
 			throw new WidgetException("Error while determining if element has text '" + text + "'", getByLocator(), e2);
 		}
@@ -619,7 +683,7 @@ public class Element implements IElement {
 	 * lang.String, java.lang.String, java.lang.Long)
 	 */
 	public void waitForAttributeEqualTo(final String attributeName, final String attributeValue, long timeout) throws WidgetTimeoutException {
-		waitForCommand(new ITimerCallback() {
+		waitForCommand(Condition.ATTRIBUTE_EQUAL, attributeName, attributeValue, new ITimerCallback() {
 			@Override
 			public boolean execute() throws WidgetException {
 				String val = getAttribute(attributeName);
@@ -680,13 +744,33 @@ public class Element implements IElement {
 	}
 
 	private WebElement findElement(boolean doHighlight) {
+		return findElement(doHighlight, true);
+	}
+
+	/**
+	 * Find the element, reusing the WebElement found last if the session
+	 * caches WebElements and has not navigated or switched frame or window
+	 * since
+	 * 
+	 * @param doHighlight
+	 *            whether to highlight the element
+	 * @param useCache
+	 *            false to find the element again even if it is cached, as
+	 *            presence checks must
+	 * @return the element
+	 */
+	private WebElement findElement(boolean doHighlight, boolean useCache) {
 
 		HIGHLIGHT_MODES highlightMode = doHighlight ? HIGHLIGHT_MODES.FIND : HIGHLIGHT_MODES.NONE;
 
 		getGUIDriver().selectLastFrame();
-		WebDriver wd = getGUIDriver().getWrappedDriver();
 		
-		final WebElement webElement = wd.findElement(locator);
+		final WebElement webElement;
+		if (getGUIDriver().isWebElementCaching()) {
+			webElement = findCachedElement(useCache);
+		} else {
+			webElement = getGUIDriver().getWrappedDriver().findElement(locator);
+		}
 		try {
             highlight(highlightMode);
         } catch (WidgetException e) {
@@ -695,6 +779,54 @@ public class Element implements IElement {
 		return webElement;
 	}
 
+	private synchronized WebElement findCachedElement(boolean useCache) {
+		long contextVersion = getGUIDriver().getContextVersion();
+		if (useCache && cachedElement != null && cachedContextVersion == contextVersion) {
+			cacheHits.incrementAndGet();
+			return cachedElement;
+		}
+
+		cacheMisses.incrementAndGet();
+		// Do not keep the old element if the element is gone
+		cachedElement = null;
+		cachedElement = new CachedWebElement(this, getGUIDriver().getWrappedDriver().findElement(locator));
+		cachedContextVersion = contextVersion;
+		return cachedElement;
+	}
+
+	/**
+	 * Find the element again after its cached WebElement went stale
+	 * 
+	 * @return the element
+	 */
+	WebElement refindElement() {
+		cacheMisses.incrementAndGet();
+		getGUIDriver().selectLastFrame();
+		return getGUIDriver().getWrappedDriver().findElement(locator);
+	}
+
+	/**
+	 * 
+	 * @return the number of times the cached WebElement of this element was
+	 *         reused, when the session caches WebElements
+	 * @see ExtWebDriver#setWebElementCaching(boolean)
+	 */
+	public long getWebElementCacheHits() {
+		return cacheHits.get();
+	}
+
+	/**
+	 * 
+	 * @return the number of times this element was found through its locator
+	 *         because no WebElement was cached, the cached one went stale, or
+	 *         the session navigated or switched frame or window, when the
+	 *         session caches WebElements
+	 * @see ExtWebDriver#setWebElementCaching(boolean)
+	 */
+	public long getWebElementCacheMisses() {
+		return cacheMisses.get();
+	}
+
 	/**
 	 * highlight an element for the FIND mode
 	 */
@@ -762,12 +894,13 @@ public class Element implements IElement {
 					((JavascriptExecutor) wd).executeScript(javascript, element);
 					success = true;
 				} catch (Exception e2) {
+					e = e2;
 					try {
 						Thread.sleep(500);
 					} catch (InterruptedException e1) {
-						// Ignore
+						Thread.currentThread().interrupt();
+						break;
 					}
-					e = e2;
 				}
 			}
 
@@ -777,6 +910,28 @@ public class Element implements IElement {
 		}
 	}
 
+	/**
+	 * Run a script in the current frame, if the driver can run scripts
+	 * 
+	 * @param javascript
+	 *            the script
+	 * @param args
+	 *            the arguments of the script
+	 * @return the result of the script, or null if the driver can not run
+	 *         scripts or the script failed
+	 */
+	private Object evalScript(String javascript, Object... args) {
+		WebDriver wd = getGUIDriver().getWrappedDriver();
+		if (!(wd instanceof JavascriptExecutor)) {
+			return null;
+		}
+		try {
+			return ((JavascriptExecutor) wd).executeScript(javascript, args);
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -795,10 +950,47 @@ public class Element implements IElement {
 	 * @throws WidgetTimeoutException
 	 */
 	protected void waitForCommand(ITimerCallback callback, long timeout) throws WidgetTimeoutException {
-		WaitForConditionTimer t = new WaitForConditionTimer(getByLocator(), callback);
+		WaitForConditionTimer t = new WaitForConditionTimer(getByLocator(), callback, getGUIDriver().getPollingPolicy());
 		t.waitUntil(timeout);
 	}
 
+	/**
+	 * wait for timeout amount of time, checking the condition inside the page
+	 * if the session is in event-driven wait mode
+	 * 
+	 * @param condition
+	 *            the condition checked inside the page
+	 * @param attributeName
+	 *            the attribute of the attribute conditions
+	 * @param attributeValue
+	 *            the value of the attribute conditions
+	 * @param callback
+	 *            checks the condition through WebDriver
+	 * @param timeout
+	 * @throws WidgetTimeoutException
+	 */
+	private void waitForCommand(Condition condition, String attributeName, String attributeValue, ITimerCallback callback, long timeout) throws WidgetTimeoutException {
+		if (getGUIDriver().isEventDrivenWaitMode()) {
+			EventDrivenWait.waitUntil(getGUIDriver(), getByLocator(), condition, attributeName, attributeValue, callback, timeout);
+		} else {
+			waitForCommand(callback, timeout);
+		}
+	}
+
+	/**
+	 * Check a condition until it is met or the timeout expires
+	 * 
+	 * @param callback
+	 * @param timeout
+	 * @return true if the condition was met in time
+	 * @throws WidgetTimeoutException
+	 *             if the wait is cancelled
+	 */
+	protected boolean isConditionMet(ITimerCallback callback, long timeout) throws WidgetTimeoutException {
+		WaitForConditionTimer t = new WaitForConditionTimer(getByLocator(), callback, getGUIDriver().getPollingPolicy());
+		return t.isConditionMet(timeout);
+	}
+
 	/**
 	 * Use the Java Xpath API to determine if the element is present or not
 	 * 
@@ -890,23 +1082,9 @@ public class Element implements IElement {
 	 * @throws Exception
 	 */
 	private NodeList getNodeListUsingJavaXPath(String xpath) throws Exception {
-		XPathFactory xpathFac = XPathFactory.newInstance();
-		XPath theXpath = xpathFac.newXPath();
-
-		String html = getGUIDriver().getHtmlSource();
-		html = html.replaceAll(">\\s+<", "><");
-		InputStream input = new ByteArrayInputStream(html.getBytes(Charset.forName("UTF-8")));
-
-		XMLReader reader = new Parser();
-		reader.setFeature(Parser.namespacesFeature, false);
-		Transformer transformer = TransformerFactory.newInstance().newTransformer();
-
-		DOMResult result = new DOMResult();
-		transformer.transform(new SAXSource(reader, new InputSource(input)), result);
-
-		Node htmlNode = result.getNode(); // This code gets a Node from the
-											// result.
-		NodeList nodes = (NodeList) theXpath.evaluate(xpath, htmlNode, XPathConstants.NODESET);
+		Node htmlNode = PageSnapshotCache.getInstance().getDocument(getGUIDriver());
+		NodeList nodes = (NodeList) XPathExpressionCache.getInstance().evaluate(xpath, htmlNode,
+				XPathConstants.NODESET);
 
 		return nodes;
 	}
@@ -918,7 +1096,7 @@ public class Element implements IElement {
 	 */
 	@Override
 	public void waitForText(long time) throws WidgetException, WidgetTimeoutException {
-		waitForCommand(new ITimerCallback() {
+		waitForCommand(Condition.TEXT, null, null, new ITimerCallback() {
 
 			@Override
 			public boolean execute() throws WidgetException {
@@ -977,20 +1155,23 @@ public class Element implements IElement {
 	 *            value
 	 * @throws WidgetException
 	 */
-	private void waitForAttributePatternMatcher(String attributeName, String pattern, long timeout, boolean waitCondition) throws WidgetException {
-		long start = System.currentTimeMillis();
-		long end = start + timeout;
-		while (System.currentTimeMillis() < end) {
-			String attribute = getAttribute(attributeName);
-			if (attribute != null && attribute.matches(pattern) == waitCondition)
-				return;
-			try {
-				Thread.sleep(DEFAULT_INTERVAL);
-			} catch (InterruptedException e) {
-				throw new RuntimeException(e);
+	private void waitForAttributePatternMatcher(final String attributeName, final String pattern, long timeout, final boolean waitCondition) throws WidgetException {
+		boolean matched = isConditionMet(new ITimerCallback() {
+
+			@Override
+			public boolean execute() throws WidgetException {
+				String attribute = getAttribute(attributeName);
+				return attribute != null && attribute.matches(pattern) == waitCondition;
 			}
+
+			@Override
+			public String toString() {
+				return "Waiting for attribute " + attributeName + (waitCondition ? " to match " : " to not match ") + pattern + " - for the element with the locator: " + locator;
+			}
+		}, timeout);
+		if (!matched) {
+			throw new TimeOutException("waitForAttribute " + " : timeout : Locator : " + locator + " Attribute : " + attributeName);
 		}
-		throw new TimeOutException("waitForAttribute " + " : timeout : Locator : " + locator + " Attribute : " + attributeName);
 	}
 
 	/*
@@ -1034,7 +1215,7 @@ public class Element implements IElement {
 	 */
 	@Override
 	public void waitForEnabled(long time) throws WidgetException {
-		waitForCommand(new ITimerCallback() {
+		waitForCommand(Condition.ENABLED, null, null, new ITimerCallback() {
 
 			@Override
 			public boolean execute() throws WidgetException {
@@ -1067,7 +1248,7 @@ public class Element implements IElement {
 	 * .lang.String, java.lang.String, java.lang.Long)
 	 */
 	public void waitForAttributeNotEqualTo(final String attributeName, final String attributeValue, long timeout) throws WidgetTimeoutException {
-		waitForCommand(new ITimerCallback() {
+		waitForCommand(Condition.ATTRIBUTE_NOT_EQUAL, attributeName, attributeValue, new ITimerCallback() {
 
 			@Override
 			public boolean execute() throws WidgetException {
@@ -1116,22 +1297,18 @@ public class Element implements IElement {
 	 */
 	@Override
 	public boolean isElementNotPresent(long timeout) throws WidgetException {
-		final long start = System.currentTimeMillis();
-		final long end = start + timeout;
-		while (true) {
-			if (!isElementPresent()) {
-				return true;
-			}
+		return isConditionMet(new ITimerCallback() {
 
-			// Once again, measures the time interval more accurately.
-			if (System.currentTimeMillis() >= end) {
-				return false;
+			@Override
+			public boolean execute() throws WidgetException {
+				return !isElementPresent();
 			}
-			try {
-				Thread.sleep(500);
-			} catch (InterruptedException e) {
+
+			@Override
+			public String toString() {
+				return "Checking whether element with locator " + locator + " is not present";
 			}
-		}
+		}, timeout);
 	}
 
 	/**
@@ -1164,7 +1341,17 @@ public class Element implements IElement {
 	 */
 	@Override
 	public String[] getChildNodesValuesText() throws WidgetException {
-		WebElement we = new Element(getByLocator()).getWebElement();
+		WebElement we = findElement();
+		Object result = evalScript(CHILD_TEXTS_SCRIPT, we);
+		if (result instanceof List) {
+			List<?> texts = (List<?>) result;
+			String[] childText = new String[texts.size()];
+			for (int i = 0; i < childText.length; i++) {
+				childText[i] = String.valueOf(texts.get(i));
+			}
+			return childText;
+		}
+
 		List<WebElement> childNodes = we.findElements(By.xpath("./*"));
 		String[] childText = new String[childNodes.size()];
 		int i = 0;
@@ -1262,20 +1449,22 @@ public class Element implements IElement {
          * @param locator the locator as string.
          */
         private EByFirstMatching(String locator) {
-            super(locator, new ByFirstMatching(By.xpath(locator), By.id(locator),
-                    By.name(locator), By.cssSelector(locator),
-                    By.className(locator), By.tagName(locator)));
+            super(locator, new ByFirstMatching(locator,
+                    LocatorClassifier.candidateStrategies(locator)));
         }
-	    
+
 	}
-	
+
      /**
-      * By implementation for legacy behaviour.
+      * By implementation for legacy behaviour. The strategy which matched last
+      * time is remembered in the {@link LocatorStrategyCache} and tried first.
      */
     private static class ByFirstMatching extends By {
+        final String locator;
         final By[] bys;
 
-        private ByFirstMatching(By... bys) {
+        private ByFirstMatching(String locator, By... bys) {
+            this.locator = locator;
             this.bys = bys;
         }
 
@@ -1285,15 +1474,51 @@ public class Element implements IElement {
          */
         @Override
         public List<WebElement> findElements(SearchContext context) {
-            for (By by : bys) {
-                try {
-                    final List<WebElement> element = by.findElements(context);
-                    if (element != null && element.size() > 0) {
-                        return element;
-                    }
-                } catch (Exception e) {
-                    // ignored
+            final LocatorStrategyCache cache = LocatorStrategyCache.getInstance();
+            final Integer cached = cache.lookup(context, locator);
+            if (cached != null && cached < bys.length) {
+                final List<WebElement> elements = findElements(bys[cached], context);
+                if (elements != null) {
+                    cache.recordHit();
+                    return elements;
+                }
+            }
+
+            cache.recordMiss();
+            for (int i = 0; i < bys.length; i++) {
+                if (cached != null && cached == i) {
+                    // already tried above
+                    continue;
+                }
+                final List<WebElement> elements = findElements(bys[i], context);
+                if (elements != null) {
+                    cache.store(context, locator, i);
+                    return elements;
+                }
+            }
+
+            if (cached != null) {
+                cache.evict(context, locator);
+            }
+            return null;
+        }
+
+        /**
+         *
+         * @param by
+         *            the strategy to try
+         * @param context
+         *            the context to search in
+         * @return the matching elements, or null if there are none
+         */
+        private static List<WebElement> findElements(By by, SearchContext context) {
+            try {
+                final List<WebElement> element = by.findElements(context);
+                if (element != null && element.size() > 0) {
+                    return element;
                 }
+            } catch (Exception e) {
+                // ignored
             }
             return null;
         }
@@ -0,0 +1,126 @@
+/*
+ * (C) Copyright 2013 Java Test Automation Framework Contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.finra.jtaf.ewd.widget.element;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.finra.jtaf.ewd.ExtWebDriver;
+import org.finra.jtaf.ewd.widget.ElementState;
+import org.finra.jtaf.ewd.widget.IElement;
+import org.finra.jtaf.ewd.widget.WidgetException;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Queries the state of many elements in one script call. String, XPath, CSS
+ * selector, id and name locators are resolved in the page with the strategies
+ * {@link Element} would try; elements with other locators are queried through
+ * WebDriver, one by one.
+ * <p>
+ * In the page, visibility and text are read with the same script functions
+ * {@link Element} uses for its geometry and text. This follows WebDriver's
+ * isDisplayed and getText closely, but not in every case.
+ */
+public final class ElementStateQuery {
+
+    private static final String SCRIPT = InPageLocator.FIND_FUNCTION
+            + InPageLocator.TEXT_FUNCTIONS
+            + "var queries = arguments[0], states = [];"
+            + "for (var i = 0; i < queries.length; i++) {"
+            + "  var e = find(queries[i].strategies, queries[i].locator);"
+            + "  if (!e) { states.push({present: false}); continue; }"
+            + "  states.push({present: true, visible: shown(e), enabled: !e.disabled, text: text(e)});"
+            + "}"
+            + "return states;";
+
+    private ElementStateQuery() {
+
+    }
+
+    /**
+     * 
+     * @param driver
+     *            the session
+     * @param elements
+     *            the elements to query
+     * @return the state of each element, in the order of the elements
+     * @throws WidgetException
+     */
+    @SuppressWarnings("unchecked")
+    public static List<ElementState> getElementStates(ExtWebDriver driver,
+            List<? extends IElement> elements) throws WidgetException {
+        List<Object> queries = new ArrayList<Object>();
+        List<Integer> queried = new ArrayList<Integer>();
+        for (int i = 0; i < elements.size(); i++) {
+            IElement element = elements.get(i);
+            By locator = element.getByLocator();
+            List<String> strategies = InPageLocator.getStrategies(locator);
+            if (strategies != null) {
+                Map<String, Object> query = new HashMap<String, Object>();
+                query.put("strategies", strategies);
+                query.put("locator", InPageLocator.getLocator(locator));
+                queries.add(query);
+                queried.add(i);
+            }
+        }
+
+        List<ElementState> states = new ArrayList<ElementState>(elements.size());
+        for (int i = 0; i < elements.size(); i++) {
+            states.add(null);
+        }
+
+        if (!queries.isEmpty()) {
+            driver.selectLastFrame();
+            List<Object> results;
+            try {
+                results = (List<Object>) ((JavascriptExecutor) driver.getWrappedDriver())
+                        .executeScript(SCRIPT, queries);
+            } catch (Exception e) {
+                throw new WidgetException("Error while querying element states",
+                        elements.get(queried.get(0)).getByLocator(), e);
+            }
+            for (int q = 0; q < results.size(); q++) {
+                Map<String, Object> result = (Map<String, Object>) results.get(q);
+                IElement element = elements.get(queried.get(q));
+                boolean present = Boolean.TRUE.equals(result.get("present"));
+                states.set(queried.get(q), new ElementState(element.getByLocator(), present,
+                        Boolean.TRUE.equals(result.get("visible")), Boolean.TRUE.equals(result
+                                .get("enabled")), present ? (String) result.get("text") : null));
+            }
+        }
+
+        for (int i = 0; i < elements.size(); i++) {
+            if (states.get(i) == null) {
+                states.set(i, getElementState(elements.get(i)));
+            }
+        }
+        return states;
+    }
+
+    private static ElementState getElementState(IElement element) throws WidgetException {
+        if (!element.isElementPresent()) {
+            return new ElementState(element.getByLocator(), false, false, false, null);
+        }
+        WebElement webElement = element.getWebElement();
+        return new ElementState(element.getByLocator(), true, webElement.isDisplayed(),
+                webElement.isEnabled(), webElement.getText());
+    }
+}
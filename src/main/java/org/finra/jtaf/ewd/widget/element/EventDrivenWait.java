@@ -0,0 +1,233 @@
+/*
+ * (C) Copyright 2013 Java Test Automation Framework Contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.finra.jtaf.ewd.widget.element;
+
+import java.util.List;
+
+import org.finra.jtaf.ewd.ExtWebDriver;
+import org.finra.jtaf.ewd.timer.WaitContext;
+import org.finra.jtaf.ewd.timer.WaitForConditionTimer;
+import org.finra.jtaf.ewd.timer.WaitForConditionTimer.ITimerCallback;
+import org.finra.jtaf.ewd.timer.WaitStatistics;
+import org.finra.jtaf.ewd.timer.WidgetTimeoutException;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Waits for a condition on an element inside the page. An asynchronous
+ * script finds the element, checks the condition, and checks it again on
+ * every DOM mutation (and every {@value #IN_PAGE_INTERVAL} ms, for changes
+ * such as typing which do not mutate the DOM), so a wait costs one round trip
+ * per slice of up to {@value #MAX_SLICE} ms instead of several per poll.
+ * <p>
+ * The page only gives a hint: after each script, the condition is checked
+ * once more through WebDriver, which has the final say. If the driver can not
+ * run asynchronous scripts, the page has no MutationObserver or the locator
+ * can not be resolved in the page, the wait falls back to polling with a
+ * {@link WaitForConditionTimer}.
+ * <p>
+ * The script timeout of the session is raised while the script runs, and
+ * restored afterwards.
+ */
+final class EventDrivenWait {
+
+    /**
+     * The conditions which can be checked inside the page
+     */
+    enum Condition {
+        PRESENT, NOT_PRESENT, VISIBLE, NOT_VISIBLE, TEXT, ENABLED, ATTRIBUTE_EQUAL, ATTRIBUTE_NOT_EQUAL
+    }
+
+    /**
+     * The longest time one script waits for the page, in milliseconds
+     */
+    static final long MAX_SLICE = 5000;
+
+    /**
+     * How often the page checks the condition besides DOM mutations, in
+     * milliseconds
+     */
+    static final long IN_PAGE_INTERVAL = 100;
+
+    private static final long SCRIPT_TIMEOUT_MARGIN = 2000;
+
+    private static final String SCRIPT = "var strategies = arguments[0], locator = arguments[1],"
+            + "    condition = arguments[2], name = arguments[3], value = arguments[4],"
+            + "    timeout = arguments[5], interval = arguments[6],"
+            + "    done = arguments[arguments.length - 1];"
+            + "if (typeof MutationObserver == 'undefined') { done(null); return; }"
+            + InPageLocator.FIND_FUNCTION
+            + "function shown(e) {"
+            + "  if (e.nodeType != 1 || window.getComputedStyle(e).visibility == 'hidden') { return false; }"
+            + "  for (var n = e; n && n.nodeType == 1; n = n.parentNode) {"
+            + "    if (window.getComputedStyle(n).display == 'none') { return false; }"
+            + "  }"
+            + "  return true;"
+            + "}"
+            + "function hidden(e) {"
+            + "  if (!shown(e) || window.getComputedStyle(e).opacity == '0') { return true; }"
+            + "  var r = e.getBoundingClientRect();"
+            + "  return r.width == 0 && r.height == 0;"
+            + "}"
+            + "function attribute(e) {"
+            + "  var p = e[name];"
+            + "  if (p != null && typeof p != 'object' && typeof p != 'function') { return String(p); }"
+            + "  return e.getAttribute ? e.getAttribute(name) : null;"
+            + "}"
+            + "function check() {"
+            + "  var e = find(strategies, locator);"
+            + "  switch (condition) {"
+            + "    case 'PRESENT': return e != null;"
+            + "    case 'NOT_PRESENT': return e == null;"
+            + "    case 'VISIBLE': return e != null && shown(e);"
+            + "    case 'NOT_VISIBLE': return e != null && hidden(e);"
+            + "    case 'TEXT': return e != null && (e.innerText || e.textContent || '').replace(/^\\s+|\\s+$/g, '') != '';"
+            + "    case 'ENABLED': return e != null && !e.disabled;"
+            + "    case 'ATTRIBUTE_EQUAL': return e != null && attribute(e) == value;"
+            + "    case 'ATTRIBUTE_NOT_EQUAL': return e != null && attribute(e) != value;"
+            + "  }"
+            + "  return true;"
+            + "}"
+            + "var finished = false, observer = null, poll = null, timer = null;"
+            + "function finish(met) {"
+            + "  if (finished) { return; }"
+            + "  finished = true;"
+            + "  if (observer) { observer.disconnect(); }"
+            + "  clearInterval(poll); clearTimeout(timer);"
+            + "  done(met);"
+            + "}"
+            + "function checkNow() { try { if (check()) { finish(true); } } catch (ex) { } }"
+            + "checkNow();"
+            + "if (finished) { return; }"
+            + "observer = new MutationObserver(checkNow);"
+            + "observer.observe(document, {childList: true, subtree: true, attributes: true, characterData: true});"
+            + "poll = setInterval(checkNow, interval);"
+            + "timer = setTimeout(function() { finish(false); }, timeout);";
+
+    private static final Logger logger = LoggerFactory.getLogger(EventDrivenWait.class
+            .getPackage().getName());
+
+    private EventDrivenWait() {
+
+    }
+
+    /**
+     * Block until the condition is met or the timeout expires
+     *
+     * @param driver
+     *            the session
+     * @param locator
+     *            the locator of the element
+     * @param condition
+     *            the condition to check inside the page
+     * @param attributeName
+     *            the attribute of the attribute conditions
+     * @param attributeValue
+     *            the value of the attribute conditions
+     * @param callback
+     *            checks the condition through WebDriver
+     * @param timeout
+     *            the time to wait in milliseconds
+     * @throws WidgetTimeoutException
+     *             if the condition is not met in time
+     */
+    static void waitUntil(ExtWebDriver driver, By locator, Condition condition,
+            String attributeName, String attributeValue, ITimerCallback callback, long timeout)
+            throws WidgetTimeoutException {
+        final long start = System.currentTimeMillis();
+        final long end = WaitContext.getEndTime(timeout);
+        List<String> strategies = InPageLocator.getStrategies(locator);
+        String stringLocator = strategies != null ? InPageLocator.getLocator(locator) : null;
+
+        int iterations = 0;
+        while (strategies != null) {
+            WaitContext.checkCancelled(locator);
+            long remaining = end - System.currentTimeMillis();
+            Boolean met;
+            try {
+                met = await(driver, strategies, stringLocator, condition, attributeName,
+                        attributeValue, Math.max(0, Math.min(remaining, MAX_SLICE)));
+            } catch (Exception e) {
+                logger.debug("Could not wait inside the page. Polling instead.", e);
+                met = null;
+            }
+            if (met == null) {
+                break;
+            }
+
+            // WebDriver has the final say, also when the page saw no change
+            iterations++;
+            if (isMet(callback)) {
+                record(locator, callback, iterations, start, true);
+                return;
+            }
+            if (System.currentTimeMillis() >= end) {
+                record(locator, callback, iterations, start, false);
+                throw new WidgetTimeoutException("Timed out performing action " + callback, locator);
+            }
+            if (met) {
+                // The page and WebDriver disagree; do not ask the page again at once
+                WaitContext.sleep(driver.getPollingPolicy().getInterval(iterations), locator);
+            }
+        }
+
+        new WaitForConditionTimer(locator, callback, driver.getPollingPolicy())
+                .waitUntilDeadline(end);
+    }
+
+    /**
+     *
+     * @return true if the page met the condition, false if the time ran out,
+     *         or null if the page can not observe mutations
+     */
+    private static Boolean await(ExtWebDriver driver, List<String> strategies, String locator,
+            Condition condition, String attributeName, String attributeValue, long timeout) {
+        driver.selectLastFrame();
+        WebDriver wd = driver.getWrappedDriver();
+        long previousTimeout = driver.getScriptTimeout();
+        driver.setScriptTimeout(timeout + SCRIPT_TIMEOUT_MARGIN);
+        try {
+            Object result = ((JavascriptExecutor) wd).executeAsyncScript(SCRIPT, strategies,
+                    locator, condition.name(), attributeName, attributeValue, timeout,
+                    IN_PAGE_INTERVAL);
+            return result == null ? null : Boolean.TRUE.equals(result);
+        } finally {
+            driver.setScriptTimeout(previousTimeout);
+        }
+    }
+
+    private static void record(By locator, ITimerCallback callback, int iterations, long start,
+            boolean met) {
+        WaitStatistics statistics = WaitStatistics.getInstance();
+        if (statistics.isEnabled()) {
+            statistics.record(locator, WaitStatistics.getCondition(callback), iterations,
+                    System.currentTimeMillis() - start, met);
+        }
+    }
+
+    private static boolean isMet(ITimerCallback callback) {
+        try {
+            return callback.execute();
+        } catch (Exception e) {
+            logger.debug(" Exception while waiting. " + "Ignoring and continuing to wait. ", e);
+            return false;
+        }
+    }
+}
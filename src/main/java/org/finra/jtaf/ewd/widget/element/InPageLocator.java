@@ -0,0 +1,146 @@
+/*
+ * (C) Copyright 2013 Java Test Automation Framework Contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.finra.jtaf.ewd.widget.element;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.openqa.selenium.By;
+
+/**
+ * Resolves string locators inside the page, trying the same strategies in the
+ * same order as {@link Element} does through WebDriver. Selenium's XPath, CSS
+ * selector, id and name locators are resolved with their own strategy. The
+ * scripts which describe the elements they find share its visibility and text
+ * functions.
+ */
+final class InPageLocator {
+
+    /**
+     * A script function {@code find(strategies, locator)} which returns the
+     * first element matched by the first strategy which matches, or null
+     */
+    static final String FIND_FUNCTION = "function find(strategies, locator) {"
+            + "  for (var i = 0; i < strategies.length; i++) {"
+            + "    var s = strategies[i], e = null;"
+            + "    try {"
+            + "      if (s == 'xpath') { e = document.evaluate(locator, document, null, 9, null).singleNodeValue; }"
+            + "      else if (s == 'id') { e = document.getElementById(locator); }"
+            + "      else if (s == 'name') { e = document.getElementsByName(locator)[0]; }"
+            + "      else if (s == 'css selector') { e = document.querySelector(locator); }"
+            + "      else if (s == 'class name') { e = document.getElementsByClassName(locator)[0]; }"
+            + "      else if (s == 'tag name') { e = document.getElementsByTagName(locator)[0]; }"
+            + "    } catch (ex) { }"
+            + "    if (e) { return e; }"
+            + "  }"
+            + "  return null;"
+            + "}";
+
+    /**
+     * Script functions {@code shown(e)}, whether the style or a zero size hides
+     * the element, and {@code text(e)}, its text as WebDriver shows it: nothing
+     * if hidden, with non-breaking spaces and runs of blanks collapsed. Like
+     * WebDriver, a zero-size element is shown if a child has a size and its
+     * overflow does not hide it.
+     */
+    static final String TEXT_FUNCTIONS = "function sized(e) {"
+            + "  var r = e.getBoundingClientRect();"
+            + "  if (r.width > 0 && r.height > 0) { return true; }"
+            + "  if (window.getComputedStyle(e).overflow == 'hidden') { return false; }"
+            + "  for (var c = e.firstChild; c; c = c.nextSibling) {"
+            + "    if ((c.nodeType == 3 && /\\S/.test(c.nodeValue)) || (c.nodeType == 1 && sized(c))) { return true; }"
+            + "  }"
+            + "  return false;"
+            + "}"
+            + "function shown(e) {"
+            + "  if (e.nodeType != 1) { return false; }"
+            + "  if (e.tagName.toLowerCase() == 'input' && String(e.type).toLowerCase() == 'hidden') { return false; }"
+            + "  var s = window.getComputedStyle(e);"
+            + "  if (s.visibility == 'hidden' || s.visibility == 'collapse') { return false; }"
+            + "  for (var n = e; n && n.nodeType == 1; n = n.parentNode) {"
+            + "    s = window.getComputedStyle(n);"
+            + "    if (s.display == 'none' || s.opacity == '0') { return false; }"
+            + "  }"
+            + "  return sized(e);"
+            + "}"
+            + "function text(e) {"
+            + "  if (!shown(e)) { return ''; }"
+            + "  var t = e.innerText != null ? e.innerText : e.textContent;"
+            + "  return String(t).replace(/\\u00a0/g, ' ').replace(/[ \\t\\r\\f]+/g, ' ')"
+            + "      .replace(/ ?\\n ?/g, '\\n').replace(/^\\s+|\\s+$/g, '');"
+            + "}";
+
+    // The strategies of Selenium's own locators, by the prefix of their
+    // toString(), which is the only way to read their value
+    private static final String[][] SELENIUM_LOCATORS = { { "By.xpath: ", "xpath" },
+            { "By.cssSelector: ", "css selector" }, { "By.id: ", "id" },
+            { "By.name: ", "name" } };
+
+    private InPageLocator() {
+
+    }
+
+    /**
+     *
+     * @param locator
+     *            the locator of the element
+     * @return the names of the strategies to try in the page, or null if the
+     *         locator can not be resolved in the page
+     */
+    static List<String> getStrategies(By locator) {
+        if (locator instanceof EByXpath) {
+            return Collections.singletonList("xpath");
+        }
+        if (locator instanceof StringLocatorAwareBy) {
+            String stringLocator = ((StringLocatorAwareBy) locator).getLocator();
+            return stringLocator == null ? null : LocatorClassifier
+                    .candidateStrategyNames(stringLocator);
+        }
+        String[] seleniumLocator = getSeleniumLocator(locator);
+        return seleniumLocator == null ? null : Collections.singletonList(seleniumLocator[1]);
+    }
+
+    /**
+     *
+     * @param locator
+     *            the locator of the element
+     * @return the locator to resolve in the page with the strategies of
+     *         {@link #getStrategies(By)}, or null if the locator can not be
+     *         resolved in the page
+     */
+    static String getLocator(By locator) {
+        if (locator instanceof StringLocatorAwareBy) {
+            return ((StringLocatorAwareBy) locator).getLocator();
+        }
+        String[] seleniumLocator = getSeleniumLocator(locator);
+        return seleniumLocator == null ? null : locator.toString().substring(
+                seleniumLocator[0].length());
+    }
+
+    private static String[] getSeleniumLocator(By locator) {
+        if (locator instanceof By.ByXPath || locator instanceof By.ByCssSelector
+                || locator instanceof By.ById || locator instanceof By.ByName) {
+            String description = locator.toString();
+            for (String[] seleniumLocator : SELENIUM_LOCATORS) {
+                if (description.startsWith(seleniumLocator[0])) {
+                    return seleniumLocator;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -16,6 +16,8 @@
  */
 package org.finra.jtaf.ewd.widget.element;
 
+import java.util.concurrent.Callable;
+
 import org.finra.jtaf.ewd.widget.IElement;
 import org.finra.jtaf.ewd.widget.IInteractiveElement;
 import org.finra.jtaf.ewd.widget.Keys;
@@ -59,11 +61,14 @@ public class InteractiveElement extends Element implements IInteractiveElement {
 		   final WebElement webElement = getWebElement();
 
 		        if (!getGUIDriver().isJavascriptClickMode()) {
-		            synchronized (InteractiveElement.class) {
-		                getGUIDriver().focus();
-		                highlight( HIGHLIGHT_MODES.PUT);
-		                webElement.click();
-		            }
+		            interact(new Callable<Void>() {
+		            	@Override
+		            	public Void call() throws Exception {
+		            		highlight( HIGHLIGHT_MODES.PUT);
+		            		webElement.click();
+		            		return null;
+		            	}
+		            });
 		        } else {
                     highlight( HIGHLIGHT_MODES.PUT);
                     try {
@@ -88,11 +93,14 @@ public class InteractiveElement extends Element implements IInteractiveElement {
 	@Override
 	public void doubleClick() throws WidgetException {
 		try {
-			Actions builder = new Actions(getGUIDriver().getWrappedDriver());
-	        synchronized (InteractiveElement.class) {
-	            getGUIDriver().focus();
-	            builder.doubleClick(getWebElement()).build().perform();
-	        }
+			final Actions builder = new Actions(getGUIDriver().getWrappedDriver());
+	        interact(new Callable<Void>() {
+	        	@Override
+	        	public Void call() throws Exception {
+	        		builder.doubleClick(getWebElement()).build().perform();
+	        		return null;
+	        	}
+	        });
 		} catch (Exception e) {
 			throw new WidgetException("Error while double clicking element",
 					getByLocator(), e);
@@ -107,11 +115,14 @@ public class InteractiveElement extends Element implements IInteractiveElement {
 	@Override
 	public void rightClick() throws WidgetException {
 		try {
-			 Actions builder = new Actions(getGUIDriver().getWrappedDriver());
-		        synchronized (InteractiveElement.class) {
-		            getGUIDriver().focus();
-		            builder.contextClick(getWebElement()).build().perform();
-		        }
+			 final Actions builder = new Actions(getGUIDriver().getWrappedDriver());
+		        interact(new Callable<Void>() {
+		        	@Override
+		        	public Void call() throws Exception {
+		        		builder.contextClick(getWebElement()).build().perform();
+		        		return null;
+		        	}
+		        });
 		} catch (Exception e) {
 			throw new WidgetException("Error while right clicking element",
 					getByLocator(), e);
@@ -141,14 +152,17 @@ public class InteractiveElement extends Element implements IInteractiveElement {
 	 * qc.automation.framework.widget.IInteractiveElement#dragAndDrop(IElement element)
 	 */
 	@Override
-	public void dragAndDrop(IElement element) throws WidgetException {
+	public void dragAndDrop(final IElement element) throws WidgetException {
 		try {
-			Actions builder = new Actions(getGUIDriver().getWrappedDriver());
-	        synchronized (InteractiveElement.class) {
-	            getGUIDriver().focus();
-	            builder.dragAndDrop(this.getWebElement(),
-	            		new InteractiveElement(element.getByLocator()).getWebElement()).build().perform();
-	        }
+			final Actions builder = new Actions(getGUIDriver().getWrappedDriver());
+	        interact(new Callable<Void>() {
+	        	@Override
+	        	public Void call() throws Exception {
+	        		builder.dragAndDrop(getWebElement(),
+	        				new InteractiveElement(element.getByLocator()).getWebElement()).build().perform();
+	        		return null;
+	        	}
+	        });
 		} catch (Exception e) {
 			throw new WidgetException(
 					"Error while performing drag and drop from " + getByLocator()
@@ -162,13 +176,16 @@ public class InteractiveElement extends Element implements IInteractiveElement {
 	 * @see
 	 * qc.automation.framework.widget.IInteractiveElement#dragAndDropByOffset(IElement element)
 	 */
-	 public void dragAndDropByOffset(int xOffset, int yOffset) throws WidgetException {
+	 public void dragAndDropByOffset(final int xOffset, final int yOffset) throws WidgetException {
 		try {
-		 Actions builder = new Actions(getGUIDriver().getWrappedDriver());
-		  synchronized (InteractiveElement.class) {
-		      getGUIDriver().focus();
-		      builder.dragAndDropBy(getWebElement(), xOffset, yOffset).build().perform();
-		  }
+		 final Actions builder = new Actions(getGUIDriver().getWrappedDriver());
+		  interact(new Callable<Void>() {
+		  	@Override
+		  	public Void call() throws Exception {
+		  		builder.dragAndDropBy(getWebElement(), xOffset, yOffset).build().perform();
+		  		return null;
+		  	}
+		  });
 		} catch (Exception e) {
 			throw new WidgetException(
 					"Error while performing drag and drop from " + getByLocator()
@@ -181,18 +198,21 @@ public class InteractiveElement extends Element implements IInteractiveElement {
 	 * @see qc.automation.framework.widget.IInteractiveElement#keyDown()
 	 */
 	@Override
-	public void keyDown(Keys theKey) throws WidgetException {
+	public void keyDown(final Keys theKey) throws WidgetException {
 		try {
-			Actions builder = new Actions(getGUIDriver().getWrappedDriver());
-	        synchronized (InteractiveElement.class) {
-	            getGUIDriver().focus();
-	            for (org.openqa.selenium.Keys key : org.openqa.selenium.Keys.values()) {
-	                if (key.name().equals(theKey.name())) {
-	                    builder.keyDown(getWebElement(), key).build().perform();
-	                    break;
-	                }
-	            }
-	        }
+			final Actions builder = new Actions(getGUIDriver().getWrappedDriver());
+	        interact(new Callable<Void>() {
+	        	@Override
+	        	public Void call() throws Exception {
+	        		for (org.openqa.selenium.Keys key : org.openqa.selenium.Keys.values()) {
+	        			if (key.name().equals(theKey.name())) {
+	        				builder.keyDown(getWebElement(), key).build().perform();
+	        				break;
+	        			}
+	        		}
+	        		return null;
+	        	}
+	        });
 	    } catch (Exception e) {
 			throw new WidgetException("Error while performing key down using "
 					+ theKey.name(), getByLocator(), e);
@@ -205,18 +225,21 @@ public class InteractiveElement extends Element implements IInteractiveElement {
 	 * @see qc.automation.framework.widget.IInteractiveElement#keyUp()
 	 */
 	@Override
-	public void keyUp(Keys theKey) throws WidgetException {
+	public void keyUp(final Keys theKey) throws WidgetException {
 		try {
-			 Actions builder = new Actions(getGUIDriver().getWrappedDriver());
-		        synchronized (InteractiveElement.class) {
-		            getGUIDriver().focus();
-		            for (org.openqa.selenium.Keys key : org.openqa.selenium.Keys.values()) {
-		                if (key.name().equals(theKey.name())) {
-		                    builder.keyUp(getWebElement(), key).build().perform();
-		                    break;
-		                }
-		            }
-		        }
+			 final Actions builder = new Actions(getGUIDriver().getWrappedDriver());
+		        interact(new Callable<Void>() {
+		        	@Override
+		        	public Void call() throws Exception {
+		        		for (org.openqa.selenium.Keys key : org.openqa.selenium.Keys.values()) {
+		        			if (key.name().equals(theKey.name())) {
+		        				builder.keyUp(getWebElement(), key).build().perform();
+		        				break;
+		        			}
+		        		}
+		        		return null;
+		        	}
+		        });
 
 		} catch (Exception e) {
 			throw new WidgetException("Error while performing key up using "
@@ -232,11 +255,14 @@ public class InteractiveElement extends Element implements IInteractiveElement {
 	@Override
 	public void clickAndHold() throws WidgetException {
 		try {
-			 Actions builder = new Actions(getGUIDriver().getWrappedDriver());
-		        synchronized (InteractiveElement.class) {
-		            getGUIDriver().focus();
-		            builder.clickAndHold(getWebElement()).build().perform();
-		        }
+			 final Actions builder = new Actions(getGUIDriver().getWrappedDriver());
+		        interact(new Callable<Void>() {
+		        	@Override
+		        	public Void call() throws Exception {
+		        		builder.clickAndHold(getWebElement()).build().perform();
+		        		return null;
+		        	}
+		        });
 		} catch (Exception e) {
 			throw new WidgetException("Error while performing click and hold",
 					getByLocator(), e);
@@ -252,11 +278,14 @@ public class InteractiveElement extends Element implements IInteractiveElement {
 	@Override
 	public void releaseClickAndHold() throws WidgetException {
 		try {
-			Actions builder = new Actions(getGUIDriver().getWrappedDriver());
-		    synchronized (InteractiveElement.class) {
-		        getGUIDriver().focus();
-		        builder.release(getWebElement()).build().perform();
-		    }
+			final Actions builder = new Actions(getGUIDriver().getWrappedDriver());
+		    interact(new Callable<Void>() {
+		    	@Override
+		    	public Void call() throws Exception {
+		    		builder.release(getWebElement()).build().perform();
+		    		return null;
+		    	}
+		    });
 		} catch (Exception e) {
 			throw new WidgetException("Error while releasing click and hold",
 					getByLocator(), e);
@@ -271,13 +300,16 @@ public class InteractiveElement extends Element implements IInteractiveElement {
 	 * keysToSend)
 	 */
 	@Override
-	public void sendKeys(CharSequence keysToSend) throws WidgetException {
+	public void sendKeys(final CharSequence keysToSend) throws WidgetException {
 		try {
-			  Actions builder = new Actions(getGUIDriver().getWrappedDriver());
-		        synchronized (InteractiveElement.class) {
-		            getGUIDriver().focus();
-		            builder.sendKeys(getWebElement(), keysToSend).build().perform();
-		        }
+			  final Actions builder = new Actions(getGUIDriver().getWrappedDriver());
+		        interact(new Callable<Void>() {
+		        	@Override
+		        	public Void call() throws Exception {
+		        		builder.sendKeys(getWebElement(), keysToSend).build().perform();
+		        		return null;
+		        	}
+		        });
 		} catch (Exception e) {
 			throw new WidgetException("Error while sending keys", getByLocator(),
 					e);
@@ -292,7 +324,7 @@ public class InteractiveElement extends Element implements IInteractiveElement {
      * java.lang.String)
      */
     @Override
-    public void type(String text) throws WidgetException{
+    public void type(final String text) throws WidgetException{
         try{
 	    	if (getGUIDriver().isJavascriptTypeMode()) {
 
@@ -309,17 +341,21 @@ public class InteractiveElement extends Element implements IInteractiveElement {
 	            try {
 					Thread.sleep(500);
 				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
 				}
 	        } else {
 	            // TODO Test this.
-	            synchronized (InteractiveElement.class) {
-	                getGUIDriver().focus();
-	                click();
-	                WebElement webElement = getWebElement();
-	                highlight( HIGHLIGHT_MODES.PUT);
-	                webElement.clear();
-	                webElement.sendKeys(text);
-	            }
+	            interact(new Callable<Void>() {
+	            	@Override
+	            	public Void call() throws Exception {
+	            		click();
+	            		WebElement webElement = getWebElement();
+	            		highlight( HIGHLIGHT_MODES.PUT);
+	            		webElement.clear();
+	            		webElement.sendKeys(text);
+	            		return null;
+	            	}
+	            });
 	        }
         }catch(Exception e){
         	throw new WidgetException("Error while trying to type at " + getByLocator(), getByLocator(), e);
@@ -332,14 +368,17 @@ public class InteractiveElement extends Element implements IInteractiveElement {
      * @see qc.automation.framework.widget.IInteractiveElement#typeAppend(java.lang.String,
      * java.lang.String)
      */
-    public void typeAppend(String text) throws WidgetException {
+    public void typeAppend(final String text) throws WidgetException {
         try{
-        	synchronized (InteractiveElement.class) {
-	            getGUIDriver().focus();
-	            click();
-	            WebElement e = getWebElement();
-	            e.sendKeys(text);
-	        }
+        	interact(new Callable<Void>() {
+        		@Override
+        		public Void call() throws Exception {
+        			click();
+        			WebElement e = getWebElement();
+        			e.sendKeys(text);
+        			return null;
+        		}
+        	});
         }catch(Exception e){
         	throw new WidgetException("Error while trying to type append ", getByLocator(), e);
         }
@@ -353,11 +392,14 @@ public class InteractiveElement extends Element implements IInteractiveElement {
 	@Override
 	public void mouseMove() throws WidgetException {
 		try {
-	        Actions builder = new Actions(getGUIDriver().getWrappedDriver());
-	        synchronized (InteractiveElement.class) {
-	            getGUIDriver().focus();
-	            builder.moveToElement(getWebElement()).build().perform();
-	        }
+	        final Actions builder = new Actions(getGUIDriver().getWrappedDriver());
+	        interact(new Callable<Void>() {
+	        	@Override
+	        	public Void call() throws Exception {
+	        		builder.moveToElement(getWebElement()).build().perform();
+	        		return null;
+	        	}
+	        });
 		} catch (Exception e) {
 			throw new WidgetException("Error while performing mouse move to",
 					getByLocator(), e);
@@ -373,16 +415,19 @@ public class InteractiveElement extends Element implements IInteractiveElement {
 	public void mouseMoveOut() throws WidgetException {
 		try {
 	        // TODO: Need to figure out whether 10 is sufficient
-	        int offsetAmount = 10;
+	        final int offsetAmount = 10;
 
 	        WebElement elem = getWebElement();
 	        Dimension dim = elem.getSize();
-	        int width = dim.getWidth();
-	        Actions builder = new Actions(getGUIDriver().getWrappedDriver());
-	        synchronized (InteractiveElement.class) {
-	            getGUIDriver().focus();
-	            builder.moveToElement(getWebElement(), width + offsetAmount, 0).build().perform();
-	        }
+	        final int width = dim.getWidth();
+	        final Actions builder = new Actions(getGUIDriver().getWrappedDriver());
+	        interact(new Callable<Void>() {
+	        	@Override
+	        	public Void call() throws Exception {
+	        		builder.moveToElement(getWebElement(), width + offsetAmount, 0).build().perform();
+	        		return null;
+	        	}
+	        });
 		} catch (Exception e) {
 			throw new WidgetException("Error while performing mouse move out",
 					getByLocator(), e);
@@ -0,0 +1,259 @@
+/*
+ * (C) Copyright 2013 Java Test Automation Framework Contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.finra.jtaf.ewd.widget.element;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.openqa.selenium.By;
+
+/**
+ * Classifies string locators (as passed to {@link Element#Element(String)})
+ * so that strategies which can never match are not sent to the browser.
+ * <p>
+ * A strategy is only left out when the locator is syntactically impossible
+ * for it, e.g. {@code By.cssSelector("//div")} or {@code By.className("a b")}.
+ * The one assumption made is that no page uses an id or name attribute that
+ * looks like a path expression (starting with '/', '(', './' or '../').
+ */
+public final class LocatorClassifier {
+
+    /**
+     * The shape of a string locator
+     */
+    public enum LocatorType {
+        /**
+         * a path expression such as //div[@id='x'] or (//a)[2]
+         */
+        XPATH,
+        /**
+         * a selector which can only be CSS, such as #id, .class or div > a
+         */
+        CSS,
+        /**
+         * a bare token such as myId which could be an id, name or class name
+         */
+        IDENTIFIER,
+        /**
+         * a bare token which is also the name of an HTML element, such as div
+         */
+        TAG_NAME,
+        /**
+         * anything else; all strategies are tried
+         */
+        UNKNOWN
+    }
+
+    private static final String XPATH = "xpath";
+    private static final String ID = "id";
+    private static final String NAME = "name";
+    private static final String CSS_SELECTOR = "css selector";
+    private static final String CLASS_NAME = "class name";
+    private static final String TAG_NAME = "tag name";
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_\\-]*");
+
+    private static final Pattern TAG = Pattern.compile("[A-Za-z][A-Za-z0-9\\-]*");
+
+    private static final Pattern WHITESPACE = Pattern.compile(".*\\s.*", Pattern.DOTALL);
+
+    private static final Set<String> HTML_TAGS = new HashSet<String>(Arrays.asList("a", "abbr",
+            "address", "area", "article", "aside", "audio", "b", "base", "bdi", "bdo",
+            "blockquote", "body", "br", "button", "canvas", "caption", "center", "cite", "code",
+            "col", "colgroup", "data", "datalist", "dd", "del", "details", "dfn", "dialog", "div",
+            "dl", "dt", "em", "embed", "fieldset", "figcaption", "figure", "font", "footer",
+            "form", "frame", "frameset", "h1", "h2", "h3", "h4", "h5", "h6", "head", "header",
+            "hr", "html", "i", "iframe", "img", "input", "ins", "kbd", "label", "legend", "li",
+            "link", "main", "map", "mark", "menu", "meta", "meter", "nav", "noscript", "object",
+            "ol", "optgroup", "option", "output", "p", "param", "picture", "pre", "progress", "q",
+            "s", "samp", "script", "section", "select", "small", "source", "span", "strong",
+            "style", "sub", "summary", "sup", "svg", "table", "tbody", "td", "template",
+            "textarea", "tfoot", "th", "thead", "time", "title", "tr", "track", "u", "ul", "var",
+            "video", "wbr"));
+
+    private LocatorClassifier() {
+
+    }
+
+    /**
+     *
+     * @param locator
+     *            XPath, ID, name, CSS Selector, class name, or tag name
+     * @return the shape of the locator
+     */
+    public static LocatorType classify(String locator) {
+        if (locator == null || locator.trim().length() == 0) {
+            return LocatorType.UNKNOWN;
+        }
+        if (isPathExpression(locator)) {
+            return LocatorType.XPATH;
+        }
+        if (IDENTIFIER.matcher(locator).matches()) {
+            return HTML_TAGS.contains(locator.toLowerCase()) ? LocatorType.TAG_NAME
+                    : LocatorType.IDENTIFIER;
+        }
+        if (!isXPathCandidate(locator)) {
+            return LocatorType.CSS;
+        }
+        return LocatorType.UNKNOWN;
+    }
+
+    /**
+     * Build the strategies that could match the locator, in the same order
+     * {@link Element} has always tried them: xpath, id, name, CSS selector,
+     * class name and tag name.
+     *
+     * @param locator
+     *            XPath, ID, name, CSS Selector, class name, or tag name
+     * @return the candidate strategies; never empty
+     */
+    public static By[] candidateStrategies(String locator) {
+        List<String> names = candidateStrategyNames(locator);
+        By[] bys = new By[names.size()];
+        for (int i = 0; i < bys.length; i++) {
+            bys[i] = toBy(names.get(i), locator);
+        }
+        return bys;
+    }
+
+    /**
+     * Name the strategies that could match the locator, in the order of
+     * {@link #candidateStrategies(String)}
+     *
+     * @param locator
+     *            XPath, ID, name, CSS Selector, class name, or tag name
+     * @return the names of the candidate strategies: "xpath", "id", "name",
+     *         "css selector", "class name" or "tag name"; never empty
+     */
+    public static List<String> candidateStrategyNames(String locator) {
+        if (locator == null || locator.trim().length() == 0) {
+            return Arrays.asList(XPATH, ID, NAME, CSS_SELECTOR, CLASS_NAME, TAG_NAME);
+        }
+
+        List<String> names = new ArrayList<String>();
+        if (isXPathCandidate(locator)) {
+            names.add(XPATH);
+        }
+        if (isAttributeCandidate(locator)) {
+            names.add(ID);
+            names.add(NAME);
+        }
+        if (isCssCandidate(locator)) {
+            names.add(CSS_SELECTOR);
+        }
+        if (isClassNameCandidate(locator)) {
+            names.add(CLASS_NAME);
+        }
+        if (isTagNameCandidate(locator)) {
+            names.add(TAG_NAME);
+        }
+        return names;
+    }
+
+    private static By toBy(String strategy, String locator) {
+        if (strategy.equals(XPATH)) {
+            return By.xpath(locator);
+        } else if (strategy.equals(ID)) {
+            return By.id(locator);
+        } else if (strategy.equals(NAME)) {
+            return By.name(locator);
+        } else if (strategy.equals(CSS_SELECTOR)) {
+            return By.cssSelector(locator);
+        } else if (strategy.equals(CLASS_NAME)) {
+            return By.className(locator);
+        }
+        return By.tagName(locator);
+    }
+
+    /**
+     * An XPath can only return elements if it is not a CSS id/class selector
+     * and, when it is a bare name, if it names the root element.
+     *
+     * @param locator
+     *            the string locator
+     * @return false if By.xpath can never match the locator
+     */
+    public static boolean isXPathCandidate(String locator) {
+        if (locator.startsWith("#")) {
+            return false;
+        }
+        if (locator.startsWith(".") && !locator.startsWith("./") && !locator.startsWith("..")
+                && !locator.equals(".")) {
+            return false;
+        }
+        if (IDENTIFIER.matcher(locator).matches()) {
+            // a bare name test only selects the document element
+            return locator.equalsIgnoreCase("html");
+        }
+        return true;
+    }
+
+    /**
+     *
+     * @param locator
+     *            the string locator
+     * @return false if By.cssSelector can never match the locator
+     */
+    public static boolean isCssCandidate(String locator) {
+        return !isPathExpression(locator) && !locator.contains("[@");
+    }
+
+    /**
+     *
+     * @param locator
+     *            the string locator
+     * @return false if By.className can never match the locator
+     */
+    public static boolean isClassNameCandidate(String locator) {
+        return !isPathExpression(locator) && !WHITESPACE.matcher(locator).matches();
+    }
+
+    /**
+     *
+     * @param locator
+     *            the string locator
+     * @return false if By.tagName can never match the locator
+     */
+    public static boolean isTagNameCandidate(String locator) {
+        return TAG.matcher(locator).matches();
+    }
+
+    /**
+     *
+     * @param locator
+     *            the string locator
+     * @return false if By.id and By.name should not be tried
+     */
+    private static boolean isAttributeCandidate(String locator) {
+        return !isPathExpression(locator);
+    }
+
+    /**
+     *
+     * @param locator
+     *            the string locator
+     * @return true if the locator starts like an XPath location path
+     */
+    private static boolean isPathExpression(String locator) {
+        return locator.startsWith("/") || locator.startsWith("(") || locator.startsWith("./")
+                || locator.startsWith("../") || locator.equals(".") || locator.equals("..");
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * (C) Copyright 2013 Java Test Automation Framework Contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.finra.jtaf.ewd.widget.element;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openqa.selenium.SearchContext;
+
+/**
+ * Remembers which strategy (xpath, id, name, ...) found a string locator the
+ * last time it was looked up, so that the next lookup of the same locator in
+ * the same session can try that strategy first instead of walking the whole
+ * chain.
+ * <p>
+ * Entries are kept per {@link SearchContext} (normally the wrapped
+ * {@code WebDriver} of a session) and are dropped together with it.
+ */
+public final class LocatorStrategyCache {
+
+    private static final LocatorStrategyCache INSTANCE = new LocatorStrategyCache();
+
+    private final Map<SearchContext, Map<String, Integer>> strategies = Collections
+            .synchronizedMap(new WeakHashMap<SearchContext, Map<String, Integer>>());
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private volatile boolean enabled = true;
+
+    private LocatorStrategyCache() {
+
+    }
+
+    /**
+     * Obtain the process-wide instance of the cache.
+     *
+     * @return the LocatorStrategyCache
+     */
+    public static LocatorStrategyCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Turn the cache on or off. When off, every lookup walks the full chain of
+     * strategies, as it did before the cache existed.
+     *
+     * @param enabled
+     *            true to remember successful strategies
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            clear();
+        }
+    }
+
+    /**
+     *
+     * @return true if successful strategies are remembered
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     *
+     * @return the number of lookups answered by the remembered strategy
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     *
+     * @return the number of lookups which had to walk the full chain
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     *
+     * @return the fraction of lookups answered by the remembered strategy, or
+     *         0 if there were no lookups yet
+     */
+    public double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /**
+     * Forget all remembered strategies and reset the hit/miss counters
+     */
+    public void clear() {
+        strategies.clear();
+        hits.set(0);
+        misses.set(0);
+    }
+
+    /**
+     *
+     * @param context
+     *            the context the locator is resolved against
+     * @param locator
+     *            the string locator
+     * @return the index of the strategy which matched last time, or null if
+     *         there is none
+     */
+    Integer lookup(SearchContext context, String locator) {
+        if (!enabled || context == null || locator == null) {
+            return null;
+        }
+        Map<String, Integer> forContext = strategies.get(context);
+        return forContext == null ? null : forContext.get(locator);
+    }
+
+    /**
+     *
+     * @param context
+     *            the context the locator was resolved against
+     * @param locator
+     *            the string locator
+     * @param index
+     *            the index of the strategy which matched
+     */
+    void store(SearchContext context, String locator, int index) {
+        if (!enabled || context == null || locator == null) {
+            return;
+        }
+        Map<String, Integer> forContext;
+        synchronized (strategies) {
+            forContext = strategies.get(context);
+            if (forContext == null) {
+                forContext = new ConcurrentHashMap<String, Integer>();
+                strategies.put(context, forContext);
+            }
+        }
+        forContext.put(locator, index);
+    }
+
+    /**
+     *
+     * @param context
+     *            the context the locator was resolved against
+     * @param locator
+     *            the string locator which no longer matches
+     */
+    void evict(SearchContext context, String locator) {
+        if (context == null || locator == null) {
+            return;
+        }
+        Map<String, Integer> forContext = strategies.get(context);
+        if (forContext != null) {
+            forContext.remove(locator);
+        }
+    }
+
+    void recordHit() {
+        if (enabled) {
+            hits.incrementAndGet();
+        }
+    }
+
+    void recordMiss() {
+        if (enabled) {
+            misses.incrementAndGet();
+        }
+    }
+}
@@ -18,6 +18,7 @@ package org.finra.jtaf.ewd.widget.element.html;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 import org.finra.jtaf.ewd.widget.IElement;
 import org.finra.jtaf.ewd.widget.WidgetException;
@@ -35,6 +36,21 @@ import org.openqa.selenium.WebElement;
  */
 public class HtmlList extends Element implements IElement {
 
+    private static final String ITEM_ATTRIBUTE = "htmllistitemattribute";
+
+    private static final String MARK_ITEMS_SCRIPT = "var prefix = arguments[1], index = arguments[2];"
+            + "var markers = [], i = 0;"
+            + "for (var c = arguments[0].firstChild; c; c = c.nextSibling) {"
+            + "  if (c.nodeType != 1 || c.tagName.toLowerCase() != 'li') { continue; }"
+            + "  if (index < 0 || index == i) {"
+            + "    var marker = prefix + '-' + i;"
+            + "    c.setAttribute('" + ITEM_ATTRIBUTE + "', marker);"
+            + "    markers.push(marker);"
+            + "  }"
+            + "  i++;"
+            + "}"
+            + "return markers;";
+
     /**
      * 
      * @param locator
@@ -74,23 +90,11 @@ public class HtmlList extends Element implements IElement {
      * @throws WidgetException
      */
     public IElement getItem(int iterator) throws WidgetException {
-        IElement e = new Element(getByLocator());
-        List<WebElement> elements = null;
-        try {
-            elements = e.getWebElement().findElements(By.xpath("./li"));
-        } catch (Exception exc) {
-            throw new WidgetException("Element not found", getByLocator(), exc);
-        }
-
-        if (iterator <= elements.size()) {
-            WebElement we = elements.get(iterator - 1);
-            String key = "htmllistitemattribute";
-            long value = System.currentTimeMillis();
-            eval("arguments[0].setAttribute('" + key + "', '" + value + "')", we);
-            return new Element("//*[@htmllistitemattribute='" + value + "']");
-        } else {
+        List<String> markers = iterator < 1 ? new ArrayList<String>() : markItems(iterator - 1);
+        if (markers.isEmpty()) {
             throw new WidgetException("No element at number: " + iterator, getByLocator());
         }
+        return new Element(getItemLocator(markers.get(0)));
     }
 
     /**
@@ -104,51 +108,75 @@ public class HtmlList extends Element implements IElement {
         }
 
         List<IElement> l = new ArrayList<IElement>();
-        IElement e = new Element(getByLocator());
-        List<WebElement> elements = e.getWebElement().findElements(By.xpath("./li"));
-        for (WebElement we : elements) {
-            String key = "htmllistitemattribute";
-            long value = System.currentTimeMillis();
-            eval("arguments[0].setAttribute('" + key + "', '" + value + "')", we);
-            IElement ielement = new Element("//*[@htmllistitemattribute='" + value + "']");
-            l.add(ielement);
+        for (String marker : markItems(-1)) {
+            l.add(new Element(getItemLocator(marker)));
         }
+        return l;
+    }
 
+    /**
+     * Mark the li children of the list with unique values of
+     * htmllistitemattribute in a single script, so that they can be found
+     * again by locator
+     * 
+     * @param index
+     *            the index, starting at 0, of the item to mark, or -1 to mark
+     *            all items
+     * @return the values of the marked items, in list order
+     * @throws WidgetException
+     */
+    @SuppressWarnings("unchecked")
+    private List<String> markItems(int index) throws WidgetException {
+        WebElement list;
+        try {
+            list = getWebElement();
+        } catch (Exception e) {
+            throw new WidgetException("Element not found", getByLocator(), e);
+        }
+        String prefix = UUID.randomUUID().toString();
+        List<Object> markers = (List<Object>) eval(MARK_ITEMS_SCRIPT, list, prefix, index);
+
+        List<String> l = new ArrayList<String>(markers.size());
+        for (Object marker : markers) {
+            l.add(String.valueOf(marker));
+        }
         return l;
     }
 
+    private static By getItemLocator(String marker) {
+        return By.xpath("//*[@" + ITEM_ATTRIBUTE + "='" + marker + "']");
+    }
+
     /**
      * 
      * @param javascript
      *            the JS to evaluate/execute
-     * @param element
-     *            the element to use
+     * @param args
+     *            the arguments of the script
+     * @return the result of the script
      * @throws WidgetException
      */
-    private void eval(String javascript, WebElement element) throws WidgetException {
+    private Object eval(String javascript, Object... args) throws WidgetException {
         WebDriver wd = getGUIDriver().getWrappedDriver();
         try {
-            ((JavascriptExecutor) wd).executeScript(javascript, element);
+            return ((JavascriptExecutor) wd).executeScript(javascript, args);
         } catch (Exception e) {
             long time = System.currentTimeMillis() + 2000;
-            boolean success = false;
-            while (!success && System.currentTimeMillis() < time) {
+            while (System.currentTimeMillis() < time) {
                 try {
-                    ((JavascriptExecutor) wd).executeScript(javascript, element);
-                    success = true;
+                    return ((JavascriptExecutor) wd).executeScript(javascript, args);
                 } catch (Exception e2) {
                     try {
                         Thread.sleep(500);
                     } catch (InterruptedException e1) {
-                        // Ignore
+                        Thread.currentThread().interrupt();
+                        break;
                     }
                     e = e2;
                 }
             }
 
-            if (!success) {
-                throw new RuntimeException(e);
-            }
+            throw new RuntimeException(e);
         }
     }
 }
@@ -0,0 +1,459 @@
+/*
+ * (C) Copyright 2013 Java Test Automation Framework Contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.finra.jtaf.ewd.widget.element.html;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.finra.jtaf.ewd.widget.IInteractiveTable;
+import org.finra.jtaf.ewd.widget.WidgetException;
+import org.finra.jtaf.ewd.widget.element.InteractiveElement;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.Keys;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.interactions.Actions;
+
+/**
+ * HTML Table element whose rows can be selected and double clicked.
+ * <p>
+ * Rows are numbered from 1 over the visible rows, as in {@link Table}. Rows
+ * given by their content are looked up in one {@link TableSnapshot}, and the
+ * elements of all target rows are found with one script, so selecting many
+ * rows does not read the table once per row. Selecting several rows clicks
+ * the first one and control-clicks the others in a single Actions sequence.
+ * <p>
+ * A row is considered selected if it has aria-selected="true" or the class
+ * set with {@link #setSelectedRowClass(String)} ("selected" by default). In
+ * the *Element methods, the values of an item are compared with the cell text
+ * using their string form, and the cells are returned as {@link WebElement}s.
+ */
+public class InteractiveTable extends Table implements IInteractiveTable {
+
+    private String selectedRowClass = "selected";
+
+    /**
+     *
+     * @param locator
+     *            XPath, ID, name, CSS Selector, class name, or tag name
+     * @throws WidgetException
+     */
+    public InteractiveTable(String locator) throws WidgetException {
+        super(locator);
+    }
+
+    /**
+     *
+     * @param locator
+     *            XPath, ID, name, CSS Selector, class name, or tag name
+     * @throws WidgetException
+     */
+    public InteractiveTable(By locator) throws WidgetException {
+        super(locator);
+    }
+
+    /**
+     *
+     * @param selectedRowClass
+     *            the class the page gives to selected rows, or null if
+     *            selected rows are only marked with aria-selected
+     */
+    public void setSelectedRowClass(String selectedRowClass) {
+        this.selectedRowClass = selectedRowClass;
+    }
+
+    /**
+     *
+     * @return the class the page gives to selected rows
+     */
+    public String getSelectedRowClass() {
+        return selectedRowClass;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.finra.jtaf.ewd.widget.IInteractiveTable#selectRow(int)
+     */
+    @Override
+    public void selectRow(int rowNumber) throws WidgetException {
+        selectRows(rowNumber);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.finra.jtaf.ewd.widget.IInteractiveTable#selectRow(java.util.Map)
+     */
+    @Override
+    public void selectRow(Map<String, String> item) throws WidgetException {
+        selectRows(Collections.singletonList(item));
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * org.finra.jtaf.ewd.widget.IInteractiveTable#selectRowElement(java.util
+     * .Map)
+     */
+    @Override
+    public void selectRowElement(Map<String, Object> item) throws WidgetException {
+        selectRow(toTextItem(item));
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.finra.jtaf.ewd.widget.IInteractiveTable#selectRows(int[])
+     */
+    @Override
+    public void selectRows(int... rowNumbers) throws WidgetException {
+        List<Integer> rows = new ArrayList<Integer>(rowNumbers.length);
+        for (int rowNumber : rowNumbers) {
+            rows.add(rowNumber);
+        }
+        clickRows(findRows(rows, -1));
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * org.finra.jtaf.ewd.widget.IInteractiveTable#selectRows(java.util.List)
+     */
+    @Override
+    public void selectRows(List<Map<String, String>> items) throws WidgetException {
+        clickRows(findRows(getRowNumbers(items), -1));
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * org.finra.jtaf.ewd.widget.IInteractiveTable#selectRowsElements(java.util
+     * .List)
+     */
+    @Override
+    public void selectRowsElements(List<Map<String, Object>> items) throws WidgetException {
+        List<Map<String, String>> textItems = new ArrayList<Map<String, String>>(items.size());
+        for (Map<String, Object> item : items) {
+            textItems.add(toTextItem(item));
+        }
+        selectRows(textItems);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.finra.jtaf.ewd.widget.IInteractiveTable#doubleClickRow(int)
+     */
+    @Override
+    public void doubleClickRow(int rowNumber) throws WidgetException {
+        doubleClick(findRows(Collections.singletonList(rowNumber), -1).get(0));
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.finra.jtaf.ewd.widget.IInteractiveTable#doubleClickRow(int, int)
+     */
+    @Override
+    public void doubleClickRow(int rowNumber, int columnNumber) throws WidgetException {
+        doubleClick(findRows(Collections.singletonList(rowNumber), columnNumber - 1).get(0));
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * org.finra.jtaf.ewd.widget.IInteractiveTable#doubleClickRow(java.util.Map)
+     */
+    @Override
+    public void doubleClickRow(Map<String, String> item) throws WidgetException {
+        doubleClickRow(getRowNumbers(Collections.singletonList(item)).get(0));
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * org.finra.jtaf.ewd.widget.IInteractiveTable#doubleClickRowElement(java
+     * .util.Map)
+     */
+    @Override
+    public void doubleClickRowElement(Map<String, Object> item) throws WidgetException {
+        doubleClickRow(toTextItem(item));
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * org.finra.jtaf.ewd.widget.IInteractiveTable#doubleClickRow(java.util.Map,
+     * int)
+     */
+    @Override
+    public void doubleClickRow(Map<String, String> item, int columnNumber)
+            throws WidgetException {
+        doubleClickRow(getRowNumbers(Collections.singletonList(item)).get(0), columnNumber);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * org.finra.jtaf.ewd.widget.IInteractiveTable#doubleClickRowElement(java
+     * .util.Map, int)
+     */
+    @Override
+    public void doubleClickRowElement(Map<String, Object> item, int columnNumber)
+            throws WidgetException {
+        doubleClickRow(toTextItem(item), columnNumber);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * org.finra.jtaf.ewd.widget.IInteractiveTable#getSelectedRowsInArray()
+     */
+    @Override
+    public List<String[]> getSelectedRowsInArray() throws WidgetException {
+        try {
+            TableSnapshot snapshot = getCurrentSnapshot();
+            List<String[]> rows = new ArrayList<String[]>();
+            for (int index : getSelectedRows().keySet()) {
+                rows.add(snapshot.getRow(index + 1));
+            }
+            return rows;
+        } catch (Exception e) {
+            throw new WidgetException("Error while getting selected rows", getByLocator(), e);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * org.finra.jtaf.ewd.widget.IInteractiveTable#getSelectedRowsElementsInArray
+     * ()
+     */
+    @Override
+    public List<Object[]> getSelectedRowsElementsInArray() throws WidgetException {
+        try {
+            List<Object[]> rows = new ArrayList<Object[]>();
+            for (List<WebElement> cells : getSelectedRows().values()) {
+                rows.add(cells.toArray());
+            }
+            return rows;
+        } catch (Exception e) {
+            throw new WidgetException("Error while getting selected rows", getByLocator(), e);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.finra.jtaf.ewd.widget.IInteractiveTable#getSelectedRowsInMap()
+     */
+    @Override
+    public List<Map<String, String>> getSelectedRowsInMap() throws WidgetException {
+        try {
+            TableSnapshot snapshot = getCurrentSnapshot();
+            List<String> headers = snapshot.getHeaders();
+            List<Map<String, String>> rows = new ArrayList<Map<String, String>>();
+            for (int index : getSelectedRows().keySet()) {
+                String[] row = snapshot.getRow(index + 1);
+                Map<String, String> rowMap = new HashMap<String, String>();
+                for (int i = 0; i < row.length && i < headers.size(); i++) {
+                    rowMap.put(headers.get(i), row[i]);
+                }
+                rows.add(rowMap);
+            }
+            return rows;
+        } catch (Exception e) {
+            throw new WidgetException("Error while getting selected rows", getByLocator(), e);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * org.finra.jtaf.ewd.widget.IInteractiveTable#getSelectedRowsElementsInMap
+     * ()
+     */
+    @Override
+    public List<Map<String, Object>> getSelectedRowsElementsInMap() throws WidgetException {
+        try {
+            List<String> headers = getCurrentSnapshot().getHeaders();
+            List<Map<String, Object>> rows = new ArrayList<Map<String, Object>>();
+            for (List<WebElement> cells : getSelectedRows().values()) {
+                Map<String, Object> rowMap = new HashMap<String, Object>();
+                for (int i = 0; i < cells.size() && i < headers.size(); i++) {
+                    rowMap.put(headers.get(i), cells.get(i));
+                }
+                rows.add(rowMap);
+            }
+            return rows;
+        } catch (Exception e) {
+            throw new WidgetException("Error while getting selected rows", getByLocator(), e);
+        }
+    }
+
+    /**
+     * Look up the rows matching the items in one snapshot of the table
+     *
+     * @param items
+     *            header to cell text of each row
+     * @return the row numbers, in the order of the items
+     * @throws WidgetException
+     *             if an item matches no row
+     */
+    private List<Integer> getRowNumbers(List<Map<String, String>> items) throws WidgetException {
+        TableSnapshot snapshot = getCurrentSnapshot();
+        List<Integer> rowNumbers = new ArrayList<Integer>(items.size());
+        for (Map<String, String> item : items) {
+            int rowNumber = snapshot.getRowNumber(item);
+            if (rowNumber == -1) {
+                throw new WidgetException("No row matches " + item, getByLocator());
+            }
+            rowNumbers.add(rowNumber);
+        }
+        return rowNumbers;
+    }
+
+    /**
+     * Find the elements of rows, or of one of their cells, with one script
+     *
+     * @param rowNumbers
+     *            the rows, starting at 1
+     * @param column
+     *            the index, starting at 0, of the cell, or -1 for the rows
+     * @return the elements, in the order of the row numbers
+     * @throws WidgetException
+     *             if a row or cell does not exist
+     */
+    private List<WebElement> findRows(List<Integer> rowNumbers, int column)
+            throws WidgetException {
+        List<Integer> indexes = new ArrayList<Integer>(rowNumbers.size());
+        for (int rowNumber : rowNumbers) {
+            indexes.add(rowNumber - 1);
+        }
+
+        List<WebElement> rows;
+        try {
+            rows = ScriptTableExtractor.findRows(
+                    (JavascriptExecutor) getGUIDriver().getWrappedDriver(), getWebElement(),
+                    indexes, column);
+        } catch (Exception e) {
+            throw new WidgetException("Error while finding rows " + rowNumbers, getByLocator(), e);
+        }
+
+        for (int i = 0; i < rows.size(); i++) {
+            if (rows.get(i) == null) {
+                throw new WidgetException("The table has no row " + rowNumbers.get(i)
+                        + (column < 0 ? "" : " with column " + (column + 1)), getByLocator());
+            }
+        }
+        return rows;
+    }
+
+    /**
+     *
+     * @return the index, starting at 0, of each selected row to its cells
+     * @throws WidgetException
+     */
+    private Map<Integer, List<WebElement>> getSelectedRows() throws WidgetException {
+        return ScriptTableExtractor.findSelectedRows(
+                (JavascriptExecutor) getGUIDriver().getWrappedDriver(), getWebElement(),
+                selectedRowClass);
+    }
+
+    /**
+     * Click the first row and control-click the others in one Actions sequence
+     *
+     * @param rows
+     *            the row elements
+     * @throws WidgetException
+     */
+    private void clickRows(List<WebElement> rows) throws WidgetException {
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            final Actions builder = new Actions(getGUIDriver().getWrappedDriver());
+            builder.click(rows.get(0));
+            if (rows.size() > 1) {
+                builder.keyDown(Keys.CONTROL);
+                for (WebElement row : rows.subList(1, rows.size())) {
+                    builder.click(row);
+                }
+                builder.keyUp(Keys.CONTROL);
+            }
+            interact(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    builder.build().perform();
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            throw new WidgetException("Error while selecting rows", getByLocator(), e);
+        }
+    }
+
+    /**
+     *
+     * @param element
+     *            the row or cell to double click
+     * @throws WidgetException
+     */
+    private void doubleClick(final WebElement element) throws WidgetException {
+        try {
+            final Actions builder = new Actions(getGUIDriver().getWrappedDriver());
+            interact(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    builder.doubleClick(element).build().perform();
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            throw new WidgetException("Error while double clicking row", getByLocator(), e);
+        }
+    }
+
+    /**
+     *
+     * @param item
+     *            header to cell value
+     * @return header to the string form of the cell value
+     */
+    private static Map<String, String> toTextItem(Map<String, Object> item) {
+        Map<String, String> textItem = new HashMap<String, String>();
+        for (Map.Entry<String, Object> entry : item.entrySet()) {
+            textItem.put(entry.getKey(), String.valueOf(entry.getValue()));
+        }
+        return textItem;
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * (C) Copyright 2013 Java Test Automation Framework Contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.finra.jtaf.ewd.widget.element.html;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Reads a table in the browser with a single script, so only the text of the
+ * table crosses the wire instead of the whole page source. The rules are the
+ * ones {@link StreamingTableExtractor} and the DOM path of {@link Table}
+ * apply; whitespace-only text nodes are skipped, as the page source is
+ * stripped of whitespace between tags before it is parsed.
+ */
+final class ScriptTableExtractor {
+
+    private static final String FUNCTIONS = "function hidden(e, rowOrCell) {"
+            + "  var s = e.getAttribute('style');"
+            + "  if (!s) { return false; }"
+            + "  s = s.toLowerCase();"
+            + "  return s.indexOf('display: none') >= 0 || s.indexOf('visibility: hidden') >= 0"
+            + "      || (rowOrCell && s.indexOf('display:none') >= 0);"
+            + "}"
+            + "function is(e, name) { return e.nodeType == 1 && e.tagName.toLowerCase() == name; }"
+            + "function firstBody(table) {"
+            + "  for (var c = table.firstChild; c; c = c.nextSibling) { if (is(c, 'tbody')) { return c; } }"
+            + "  return null;"
+            + "}";
+
+    private static final String SCRIPT = FUNCTIONS
+            + "var table = arguments[0], firstRow = arguments[1],"
+            + "    maxRows = arguments[2], readHeaders = arguments[3];"
+            + "function isBlank(t) { return /^[ \\t\\n\\x0B\\f\\r]*$/.test(t); }"
+            + "function text(n, skipHidden, out) {"
+            + "  if (n.nodeType == 3) { if (!isBlank(n.nodeValue)) { out.push(n.nodeValue); } return; }"
+            + "  if (n.nodeType != 1 || (skipHidden && hidden(n, false))) { return; }"
+            + "  for (var c = n.firstChild; c; c = c.nextSibling) { text(c, skipHidden, out); }"
+            + "}"
+            + "function inVisibleHead(th) {"
+            + "  for (var p = th.parentNode; p && p != table; p = p.parentNode) {"
+            + "    if (is(p, 'thead')) {"
+            + "      var s = p.getAttribute('style');"
+            + "      if (!s || (s.indexOf('display: none') < 0 && s.indexOf('visibility: hidden') < 0)) { return true; }"
+            + "    }"
+            + "  }"
+            + "  return false;"
+            + "}"
+            + "var headers = [], headerCount = 0;"
+            + "if (readHeaders) {"
+            + "  var ths = table.getElementsByTagName('th'), inHead = [], anyInHead = false;"
+            + "  for (var i = 0; i < ths.length; i++) { inHead.push(inVisibleHead(ths[i])); anyInHead = anyInHead || inHead[i]; }"
+            + "  for (var i = 0; i < ths.length; i++) {"
+            + "    if (anyInHead && !inHead[i]) { continue; }"
+            + "    headerCount++;"
+            + "    if (!hidden(ths[i], false)) { var out = []; text(ths[i], false, out); headers.push(out.join('')); }"
+            + "  }"
+            + "}"
+            + "var body = firstBody(table);"
+            + "var rows = [], rowCount = 0;"
+            + "if (body) {"
+            + "  for (var tr = body.firstChild; tr; tr = tr.nextSibling) {"
+            + "    if (!is(tr, 'tr') || hidden(tr, true)) { continue; }"
+            + "    var keep = rowCount >= firstRow, row = [], cells = 0;"
+            + "    for (var td = tr.firstChild; td; td = td.nextSibling) {"
+            + "      if (!is(td, 'td') || hidden(td, true)) { continue; }"
+            + "      cells++;"
+            + "      if (keep) { var out = []; text(td, true, out); row.push(out.join('')); }"
+            + "    }"
+            + "    if (cells > 0) { rowCount++; if (keep) { rows.push(row); } }"
+            + "    if (maxRows >= 0 && rows.length >= maxRows) { break; }"
+            + "  }"
+            + "}"
+            + "return {headers: headers, headerCount: headerCount, rows: rows, rowCount: rowCount,"
+            + "    bodyFound: body != null};";
+
+    // Finds the elements of the visible rows with the given indexes, or of
+    // the selected visible rows when the indexes are false. An empty class
+    // means that only aria-selected marks selected rows. Arguments are never
+    // null, which HtmlUnitDriver can not pass to scripts.
+    private static final String ROWS_SCRIPT = FUNCTIONS
+            + "var table = arguments[0], wanted = arguments[1], column = arguments[2],"
+            + "    selectedClass = arguments[3];"
+            + "function selected(tr) {"
+            + "  return tr.getAttribute('aria-selected') == 'true' || (selectedClass"
+            + "      && (' ' + tr.className + ' ').indexOf(' ' + selectedClass + ' ') >= 0);"
+            + "}"
+            + "var last = -1, byIndex = {}, found = [], index = 0, body = firstBody(table);"
+            + "if (wanted) { for (var i = 0; i < wanted.length; i++) { last = Math.max(last, wanted[i]); } }"
+            + "for (var tr = body ? body.firstChild : null; tr && (!wanted || index <= last); tr = tr.nextSibling) {"
+            + "  if (!is(tr, 'tr') || hidden(tr, true)) { continue; }"
+            + "  var cells = [];"
+            + "  for (var td = tr.firstChild; td; td = td.nextSibling) {"
+            + "    if (is(td, 'td') && !hidden(td, true)) { cells.push(td); }"
+            + "  }"
+            + "  if (cells.length == 0) { continue; }"
+            + "  if (!wanted) {"
+            + "    if (selected(tr)) { found.push({index: index, cells: cells}); }"
+            + "  } else {"
+            + "    byIndex[index] = column < 0 ? tr : (column < cells.length ? cells[column] : null);"
+            + "  }"
+            + "  index++;"
+            + "}"
+            + "if (wanted) {"
+            + "  for (var i = 0; i < wanted.length; i++) {"
+            + "    found.push(byIndex.hasOwnProperty(wanted[i]) ? byIndex[wanted[i]] : null);"
+            + "  }"
+            + "}"
+            + "return found;";
+
+    private ScriptTableExtractor() {
+
+    }
+
+    /**
+     *
+     * @param js
+     *            the driver to run the script with
+     * @param table
+     *            the table element
+     * @param firstRow
+     *            the index, starting at 0, of the first row to read. Earlier
+     *            rows are only counted.
+     * @param maxRows
+     *            stop after this many rows, or -1 to read the whole table
+     * @param readHeaders
+     *            false to leave the headers out of the result
+     * @return the content of the table
+     */
+    @SuppressWarnings("unchecked")
+    static TableContent extract(JavascriptExecutor js, WebElement table, int firstRow,
+            int maxRows, boolean readHeaders) {
+        Map<String, Object> result = (Map<String, Object>) js.executeScript(SCRIPT, table,
+                firstRow, maxRows, readHeaders);
+
+        List<String> headers = new ArrayList<String>();
+        for (Object header : (List<Object>) result.get("headers")) {
+            headers.add(String.valueOf(header).trim());
+        }
+
+        List<Object> rowList = (List<Object>) result.get("rows");
+        List<String[]> rows = new ArrayList<String[]>(rowList.size());
+        for (Object rowObject : rowList) {
+            List<Object> cells = (List<Object>) rowObject;
+            String[] row = new String[cells.size()];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = String.valueOf(cells.get(i)).trim();
+            }
+            rows.add(row);
+        }
+
+        int headerCellCount = ((Number) result.get("headerCount")).intValue();
+        int rowCount = ((Number) result.get("rowCount")).intValue();
+        boolean bodyFound = Boolean.TRUE.equals(result.get("bodyFound"));
+        return new TableContent(headers, headerCellCount, rows, rowCount, bodyFound);
+    }
+
+    /**
+     * Find the elements of visible rows, or of one of their cells, with a
+     * single script
+     *
+     * @param js
+     *            the driver to run the script with
+     * @param table
+     *            the table element
+     * @param rowIndexes
+     *            the indexes, starting at 0, of the visible rows
+     * @param column
+     *            the index, starting at 0, of the visible cell to return, or
+     *            -1 to return the tr elements
+     * @return the elements in the order of the indexes; null for a row or
+     *         cell which does not exist
+     */
+    @SuppressWarnings("unchecked")
+    static List<WebElement> findRows(JavascriptExecutor js, WebElement table,
+            List<Integer> rowIndexes, int column) {
+        List<Object> found = (List<Object>) js.executeScript(ROWS_SCRIPT, table, rowIndexes,
+                column, "");
+        List<WebElement> rows = new ArrayList<WebElement>(found.size());
+        for (Object row : found) {
+            rows.add((WebElement) row);
+        }
+        return rows;
+    }
+
+    /**
+     * Find the visible rows which are selected, i.e. have aria-selected="true"
+     * or the given class, with a single script
+     *
+     * @param js
+     *            the driver to run the script with
+     * @param table
+     *            the table element
+     * @param selectedClass
+     *            the class of selected rows, or null to only use
+     *            aria-selected
+     * @return the index, starting at 0, of each selected row to its visible
+     *         cells, in row order
+     */
+    @SuppressWarnings("unchecked")
+    static Map<Integer, List<WebElement>> findSelectedRows(JavascriptExecutor js,
+            WebElement table, String selectedClass) {
+        List<Object> found = (List<Object>) js.executeScript(ROWS_SCRIPT, table, false, -1,
+                selectedClass == null ? "" : selectedClass);
+        Map<Integer, List<WebElement>> rows = new LinkedHashMap<Integer, List<WebElement>>();
+        for (Object rowObject : found) {
+            Map<String, Object> row = (Map<String, Object>) rowObject;
+            List<WebElement> cells = new ArrayList<WebElement>();
+            for (Object cell : (List<Object>) row.get("cells")) {
+                cells.add((WebElement) cell);
+            }
+            rows.put(((Number) row.get("index")).intValue(), cells);
+        }
+        return rows;
+    }
+}
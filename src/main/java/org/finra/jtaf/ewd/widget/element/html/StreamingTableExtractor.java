@@ -0,0 +1,287 @@
+/*
+ * (C) Copyright 2013 Java Test Automation Framework Contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.finra.jtaf.ewd.widget.element.html;
+
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import org.ccil.cowan.tagsoup.Parser;
+import org.openqa.selenium.NoSuchElementException;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Reads a table out of the page source in a single TagSoup SAX pass without
+ * building a DOM. The rules are the ones {@link Table} applies to the parsed
+ * DOM:
+ * <ul>
+ * <li>headers are the th cells under a thead which is not hidden, or all th
+ * cells of the table if there are none, leaving out hidden th cells</li>
+ * <li>rows are the tr children of the first tbody of the table, leaving out
+ * hidden rows, hidden td cells and rows without td cells</li>
+ * <li>the text of a cell leaves out the text of hidden descendants</li>
+ * </ul>
+ */
+final class StreamingTableExtractor extends DefaultHandler {
+
+    /**
+     * Thrown from the handler to end the parse once nothing more is needed
+     */
+    private static final class StopParsingException extends SAXException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    private static final class HeaderCell {
+        private final int depth;
+        private final boolean hidden;
+        private final boolean inVisibleHead;
+        private final StringBuilder text = new StringBuilder();
+
+        private HeaderCell(int depth, boolean hidden, boolean inVisibleHead) {
+            this.depth = depth;
+            this.hidden = hidden;
+            this.inVisibleHead = inVisibleHead;
+        }
+    }
+
+    private final String attributeName;
+    private final String attributeValue;
+    private final int firstRow;
+    private final int maxRows;
+
+    private int depth = 0;
+    private int tableDepth = -1;
+    private int bodyDepth = -1;
+    private boolean bodyFound = false;
+    private int rowDepth = -1;
+    private int cellDepth = -1;
+    private int hiddenDepth = -1;
+    private int rowCount = 0;
+    private int rowCellCount = 0;
+
+    private List<String> row;
+    private StringBuilder cell;
+
+    private final Deque<Integer> visibleHeads = new ArrayDeque<Integer>();
+    private final Deque<HeaderCell> openHeaderCells = new ArrayDeque<HeaderCell>();
+    private final List<HeaderCell> headerCells = new ArrayList<HeaderCell>();
+    private final List<String[]> rows = new ArrayList<String[]>();
+
+    private StreamingTableExtractor(String attributeName, String attributeValue, int firstRow,
+            int maxRows) {
+        this.attributeName = attributeName;
+        this.attributeValue = attributeValue;
+        this.firstRow = firstRow;
+        this.maxRows = maxRows;
+    }
+
+    /**
+     *
+     * @param html
+     *            the page source
+     * @param attributeName
+     *            the name of the attribute which marks the table
+     * @param attributeValue
+     *            the value of the attribute which marks the table
+     * @param firstRow
+     *            the index, starting at 0, of the first row to read. Earlier
+     *            rows are only counted.
+     * @param maxRows
+     *            stop after this many rows, or -1 to read the whole table.
+     *            When the parse stops early, header cells after the last row
+     *            read are not included.
+     * @return the content of the table
+     * @throws Exception
+     */
+    static TableContent extract(String html, String attributeName, String attributeValue,
+            int firstRow, int maxRows) throws Exception {
+        StreamingTableExtractor handler = new StreamingTableExtractor(attributeName,
+                attributeValue, firstRow, maxRows);
+
+        XMLReader reader = new Parser();
+        reader.setFeature(Parser.namespacesFeature, false);
+        reader.setContentHandler(handler);
+        try {
+            reader.parse(new InputSource(new StringReader(html.replaceAll(">\\s+<", "><"))));
+        } catch (StopParsingException e) {
+            // The table has been read
+        }
+
+        if (handler.tableDepth == -1) {
+            throw new NoSuchElementException("Could not find table element with "
+                    + attributeName + "='" + attributeValue + "'");
+        }
+        return handler.toTableContent();
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes atts)
+            throws SAXException {
+        depth++;
+        if (tableDepth == -1) {
+            if (attributeValue.equals(atts.getValue(attributeName))) {
+                tableDepth = depth;
+            }
+            return;
+        }
+
+        String name = qName != null && qName.length() > 0 ? qName : localName;
+        String style = atts.getValue("style");
+
+        if (name.equalsIgnoreCase("thead") && !isHiddenHead(style)) {
+            visibleHeads.push(depth);
+        }
+        if (name.equalsIgnoreCase("th")) {
+            HeaderCell headerCell = new HeaderCell(depth, isHidden(style), !visibleHeads.isEmpty());
+            headerCells.add(headerCell);
+            openHeaderCells.push(headerCell);
+        }
+
+        if (name.equalsIgnoreCase("tbody") && !bodyFound && depth == tableDepth + 1) {
+            bodyFound = true;
+            bodyDepth = depth;
+        } else if (name.equalsIgnoreCase("tr") && bodyDepth != -1 && depth == bodyDepth + 1) {
+            if (!isHiddenRowOrCell(style)) {
+                rowDepth = depth;
+                rowCellCount = 0;
+                row = rowCount >= firstRow ? new ArrayList<String>() : null;
+            }
+        } else if (name.equalsIgnoreCase("td") && rowDepth != -1 && depth == rowDepth + 1) {
+            if (!isHiddenRowOrCell(style)) {
+                rowCellCount++;
+                if (row != null) {
+                    cellDepth = depth;
+                    cell = new StringBuilder();
+                }
+            }
+        } else if (cell != null && hiddenDepth == -1 && isHidden(style)) {
+            hiddenDepth = depth;
+        }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        if (tableDepth == -1) {
+            return;
+        }
+        for (HeaderCell headerCell : openHeaderCells) {
+            headerCell.text.append(ch, start, length);
+        }
+        if (cell != null && hiddenDepth == -1) {
+            cell.append(ch, start, length);
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        try {
+            if (tableDepth == -1) {
+                return;
+            }
+            if (depth == tableDepth) {
+                throw new StopParsingException();
+            }
+
+            if (depth == hiddenDepth) {
+                hiddenDepth = -1;
+            }
+            if (!openHeaderCells.isEmpty() && openHeaderCells.peek().depth == depth) {
+                openHeaderCells.pop();
+            }
+            if (!visibleHeads.isEmpty() && visibleHeads.peek() == depth) {
+                visibleHeads.pop();
+            }
+
+            if (depth == cellDepth) {
+                row.add(cell.toString().trim());
+                cell = null;
+                cellDepth = -1;
+            } else if (depth == rowDepth) {
+                // A row without td cells was used as headers
+                if (rowCellCount > 0) {
+                    rowCount++;
+                    if (row != null) {
+                        rows.add(row.toArray(new String[row.size()]));
+                    }
+                }
+                row = null;
+                rowDepth = -1;
+                if (maxRows >= 0 && rows.size() >= maxRows) {
+                    throw new StopParsingException();
+                }
+            } else if (depth == bodyDepth) {
+                bodyDepth = -1;
+            }
+        } finally {
+            depth--;
+        }
+    }
+
+    private TableContent toTableContent() {
+        boolean anyInVisibleHead = false;
+        for (HeaderCell headerCell : headerCells) {
+            if (headerCell.inVisibleHead) {
+                anyInVisibleHead = true;
+                break;
+            }
+        }
+
+        int headerCellCount = 0;
+        List<String> headers = new ArrayList<String>();
+        for (HeaderCell headerCell : headerCells) {
+            if (anyInVisibleHead && !headerCell.inVisibleHead) {
+                continue;
+            }
+            headerCellCount++;
+            if (!headerCell.hidden) {
+                headers.add(headerCell.text.toString().trim());
+            }
+        }
+        return new TableContent(headers, headerCellCount, rows, rowCount, bodyFound);
+    }
+
+    /**
+     * The thead rule is case sensitive, as it always was in the XPath
+     */
+    private static boolean isHiddenHead(String style) {
+        return style != null
+                && (style.contains("display: none") || style.contains("visibility: hidden"));
+    }
+
+    private static boolean isHidden(String style) {
+        if (style == null) {
+            return false;
+        }
+        style = style.toLowerCase();
+        return style.contains("display: none") || style.contains("visibility: hidden");
+    }
+
+    private static boolean isHiddenRowOrCell(String style) {
+        if (style == null) {
+            return false;
+        }
+        style = style.toLowerCase();
+        return style.contains("display: none") || style.contains("display:none")
+                || style.contains("visibility: hidden");
+    }
+}
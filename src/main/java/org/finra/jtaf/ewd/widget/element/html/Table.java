@@ -16,33 +16,25 @@
  */
 package org.finra.jtaf.ewd.widget.element.html;
 
-import java.io.ByteArrayInputStream;
-import java.io.InputStream;
-import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMResult;
-import javax.xml.transform.sax.SAXSource;
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathFactory;
 
-import org.ccil.cowan.tagsoup.Parser;
 import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.NoSuchElementException;
 import org.openqa.selenium.WebElement;
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
-import org.xml.sax.XMLReader;
 
+import org.finra.jtaf.ewd.utils.PageSnapshotCache;
+import org.finra.jtaf.ewd.utils.XPathExpressionCache;
 import org.finra.jtaf.ewd.widget.IElement;
 import org.finra.jtaf.ewd.widget.ITable;
 import org.finra.jtaf.ewd.widget.WidgetException;
@@ -55,7 +47,43 @@ import org.finra.jtaf.ewd.widget.element.InteractiveElement;
  */
 public class Table extends InteractiveElement implements ITable {
 
+    /**
+     * How the content of a table is read from the page
+     */
+    public enum ExtractionMode {
+        /**
+         * parse the page source into a DOM and query it with XPath
+         */
+        DOM,
+        /**
+         * stream the page source through a SAX parser, reading headers and
+         * rows in one pass without building a DOM
+         */
+        STREAMING,
+        /**
+         * read headers and rows in the browser with a single script, so the
+         * page source is not transferred at all
+         */
+        SCRIPT
+    }
+
+    private static volatile ExtractionMode defaultExtractionMode = ExtractionMode.DOM;
+
+    private static final String TABLE_ATTRIBUTE = "tablewidgetattribute";
+
+    /**
+     * The number of rows {@link #rows()} reads at a time with the script
+     * engine
+     */
+    private static final int ROW_PAGE_SIZE = 100;
+
 	private String xPathLocator = null;
+
+    private String tableAttributeValue = null;
+
+    private ExtractionMode extractionMode = null;
+
+    private TableSnapshot snapshot = null;
 	
     /**
      * 
@@ -77,6 +105,42 @@ public class Table extends InteractiveElement implements ITable {
         super(locator);
     }
     
+    /**
+     * Set how tables read their content unless set per table
+     * 
+     * @param mode
+     *            the extraction mode
+     */
+    public static void setDefaultExtractionMode(ExtractionMode mode) {
+        defaultExtractionMode = mode;
+    }
+
+    /**
+     * 
+     * @return how tables read their content unless set per table
+     */
+    public static ExtractionMode getDefaultExtractionMode() {
+        return defaultExtractionMode;
+    }
+
+    /**
+     * Set how this table reads its content
+     * 
+     * @param mode
+     *            the extraction mode, or null to use the default
+     */
+    public void setExtractionMode(ExtractionMode mode) {
+        this.extractionMode = mode;
+    }
+
+    /**
+     * 
+     * @return how this table reads its content
+     */
+    public ExtractionMode getExtractionMode() {
+        return extractionMode != null ? extractionMode : defaultExtractionMode;
+    }
+
     /**
      * @return String of the xpath
      * @throws WidgetException
@@ -88,9 +152,10 @@ public class Table extends InteractiveElement implements ITable {
     	if(xPathLocator == null)
     	{
             IElement elem = new Element(getByLocator());
-            String key = "tablewidgetattribute";
+            String key = TABLE_ATTRIBUTE;
             long value = System.currentTimeMillis();
             elem.eval("arguments[0].setAttribute('" + key + "', '" + value + "')");
+            tableAttributeValue = String.valueOf(value);
             xPathLocator = "//*[@" + key + "='" + value + "']";
     	}
     	return xPathLocator;
@@ -106,6 +171,9 @@ public class Table extends InteractiveElement implements ITable {
         List<String> list = new ArrayList<String>();
 
         try {
+            if (getExtractionMode() != ExtractionMode.DOM) {
+                return getTableHeaders(getTableContent(0, -1, true));
+            }
 
             NodeList nodes = getNodeListUsingJavaXPath(getTableXPath(generateXPathLocator())
                     + "//thead[not(contains(@style,'display: none') or contains(@style,'visibility: hidden'))]//th");
@@ -151,7 +219,7 @@ public class Table extends InteractiveElement implements ITable {
     @Override
     public String getTableRowColumnData(int rowNumber, int columnNumber) throws WidgetException {
         try {
-            String[] data = getTableRowDataArray(rowNumber);
+            String[] data = row(rowNumber);
             return data[columnNumber - 1];
         } catch (Exception e) {
             throw new WidgetException("Error while getting table row column data at row="
@@ -169,6 +237,10 @@ public class Table extends InteractiveElement implements ITable {
     @Override
     public List<String[]> getTableDataInArray() throws WidgetException {
         try {
+            if (getExtractionMode() != ExtractionMode.DOM) {
+                return getTableDataInArray(getTableContent(0, -1, true));
+            }
+
             List<String[]> list = new ArrayList<String[]>();
             NodeList nodes = getNodeListUsingJavaXPath(getTableXPath(generateXPathLocator()) + "/tbody[1]");
             NodeList tbodyChildNodes = nodes.item(0).getChildNodes();
@@ -238,8 +310,17 @@ public class Table extends InteractiveElement implements ITable {
         try {
             List<Map<String, String>> tableDataInMap = new ArrayList<Map<String, String>>();
 
-            List<String> headers = getTableHeaders();
-            List<String[]> tableData = getTableDataInArray();
+            List<String> headers;
+            List<String[]> tableData;
+            if (getExtractionMode() != ExtractionMode.DOM) {
+                // Headers and rows come from the same pass
+                TableContent content = getTableContent(0, -1, true);
+                headers = getTableHeaders(content);
+                tableData = getTableDataInArray(content);
+            } else {
+                headers = getTableHeaders();
+                tableData = getTableDataInArray();
+            }
 
             for (String[] rowData : tableData) {
                 Map<String, String> rowDataMap = new HashMap<String, String>();
@@ -264,7 +345,10 @@ public class Table extends InteractiveElement implements ITable {
     @Override
     public int getTableRowCount() throws WidgetException {
         try {
-            return getTableDataInArray().size();
+            // Rows are only counted, in the browser with the script engine
+            TableContent content = getTableContent(Integer.MAX_VALUE, -1, false);
+            getTableDataInArray(content);
+            return content.getRowCount();
         } catch (Exception e) {
             throw new WidgetException("Error while getting table row count", generateXPathLocator(), e);
         }
@@ -278,23 +362,7 @@ public class Table extends InteractiveElement implements ITable {
     @Override
     public boolean isItemExist(Map<String, String> item) throws WidgetException {
         try {
-            List<Map<String, String>> tableData = getTableDataInMap();
-            for (Map<String, String> rowData : tableData) {
-                boolean found = true;
-                for (Map.Entry<String, String> expectedEntry : item.entrySet()) {
-                    String actual = rowData.get(expectedEntry.getKey());
-
-                    if (!actual.equals(expectedEntry.getValue())) {
-                        found = false;
-                    }
-                }
-
-                if (found) {
-                    return true;
-                }
-            }
-
-            return false;
+            return getCurrentSnapshot().isItemExist(item);
         } catch (Exception e) {
             throw new WidgetException("Error while determining whether item " + item
                     + " exists in table", generateXPathLocator(), e);
@@ -309,29 +377,52 @@ public class Table extends InteractiveElement implements ITable {
     @Override
     public int getRowNumber(Map<String, String> item) throws WidgetException {
         try {
-            List<Map<String, String>> tableData = getTableDataInMap();
-            int index = 1;
-            for (Map<String, String> rowData : tableData) {
-                boolean found = true;
-                for (Map.Entry<String, String> expectedEntry : item.entrySet()) {
-                    String actual = rowData.get(expectedEntry.getKey());
-
-                    if (!actual.equals(expectedEntry.getValue())) {
-                        found = false;
-                    }
-                }
-
-                if (found) {
-                    return index;
-                }
+            return getCurrentSnapshot().getRowNumber(item);
+        } catch (Exception e) {
+            throw new WidgetException("Error while determining row number matching item " + item
+                    + " in table", generateXPathLocator(), e);
+        }
+    }
 
-                index++;
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.finra.jtaf.ewd.widget.ITable#row(int)
+     */
+    @Override
+    public String[] row(int rowNumber) throws WidgetException {
+        try {
+            if (rowNumber < 1) {
+                throw new IndexOutOfBoundsException("Row numbers start at 1: " + rowNumber);
+            }
+            List<String[]> rows = getTableDataInArray(getTableContent(rowNumber - 1, 1, false));
+            if (rows.isEmpty()) {
+                throw new IndexOutOfBoundsException("The table has no row " + rowNumber);
             }
+            return rows.get(0);
+        } catch (Exception e) {
+            throw new WidgetException("Error while getting table row " + rowNumber,
+                    generateXPathLocator(), e);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see org.finra.jtaf.ewd.widget.ITable#rows()
+     */
+    @Override
+    public Iterator<String[]> rows() throws WidgetException {
+        if (getExtractionMode() == ExtractionMode.SCRIPT) {
+            return new PagedRowIterator();
+        }
 
-            return -1;
+        // The page source has to be parsed to the end of the table anyway,
+        // so the streaming engine reads all rows in its single pass
+        try {
+            return getTableDataInArray(getTableContent(0, -1, false)).iterator();
         } catch (Exception e) {
-            throw new WidgetException("Error while determining row number matching item " + item
-                    + " in table", generateXPathLocator(), e);
+            throw new WidgetException("Error while getting table rows", generateXPathLocator(), e);
         }
     }
 
@@ -350,44 +441,127 @@ public class Table extends InteractiveElement implements ITable {
     }
 
     /**
+     * Read the table once so that many lookups can be answered from the
+     * result
      * 
-     * @param xpath
-     *            of the NodeList
-     * @return a list of nodes found at the xpath
-     * @throws Exception
+     * @return a snapshot of the headers and visible rows
+     * @throws WidgetException
      */
-    private NodeList getNodeListUsingJavaXPath(String xpath) throws Exception {
-        XPathFactory xpathFac = XPathFactory.newInstance();
-        XPath theXpath = xpathFac.newXPath();
+    public TableSnapshot getSnapshot() throws WidgetException {
+        return new TableSnapshot(this);
+    }
 
-        String html = getGUIDriver().getHtmlSource();
-        html = html.replaceAll(">\\s+<", "><");
-        InputStream input = new ByteArrayInputStream(html.getBytes(Charset.forName("UTF-8")));
+    /**
+     * 
+     * @return the snapshot used by the lookups of this table, read again if
+     *         the page changed
+     * @throws WidgetException
+     */
+    synchronized TableSnapshot getCurrentSnapshot() throws WidgetException {
+        if (snapshot == null) {
+            snapshot = getSnapshot();
+        } else {
+            snapshot.refreshIfStale();
+        }
+        return snapshot;
+    }
 
-        XMLReader reader = new Parser();
-        reader.setFeature(Parser.namespacesFeature, false);
-        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+    /**
+     * Read the headers and visible rows with the extraction mode of this
+     * table
+     * 
+     * @return the content of the table
+     * @throws WidgetException
+     *             if the table has no headers or no tbody
+     */
+    TableContent readTableContent() throws WidgetException {
+        if (getExtractionMode() == ExtractionMode.DOM) {
+            List<String> headers = getTableHeaders();
+            List<String[]> rows = getTableDataInArray();
+            return new TableContent(headers, headers.size(), rows, rows.size(), true);
+        }
 
-        DOMResult result = new DOMResult();
-        transformer.transform(new SAXSource(reader, new InputSource(input)), result);
+        TableContent content;
+        try {
+            content = getTableContent(0, -1, true);
+        } catch (Exception e) {
+            throw new WidgetException("Error while reading table", generateXPathLocator(), e);
+        }
+        getTableHeaders(content);
+        getTableDataInArray(content);
+        return content;
+    }
 
-        // This code gets a Node from the result.
-        Node htmlNode = result.getNode();
-        NodeList nodes = (NodeList) theXpath.evaluate(xpath, htmlNode, XPathConstants.NODESET);
+    /**
+     * Read the table in one pass with the script engine, or with the
+     * streaming engine otherwise. The DOM extraction mode uses the streaming
+     * engine here since it follows the same rules without building a DOM.
+     * 
+     * @param firstRow
+     *            the index, starting at 0, of the first row needed; earlier
+     *            rows are only counted
+     * @param maxRows
+     *            the number of rows needed, or -1 for all of them
+     * @param readHeaders
+     *            false if the headers are not needed
+     * @return the content of the table
+     * @throws Exception
+     */
+    private TableContent getTableContent(int firstRow, int maxRows, boolean readHeaders)
+            throws Exception {
+        if (getExtractionMode() == ExtractionMode.SCRIPT) {
+            return ScriptTableExtractor.extract(
+                    (JavascriptExecutor) getGUIDriver().getWrappedDriver(), getWebElement(),
+                    firstRow, maxRows, readHeaders);
+        }
+        generateXPathLocator();
+        return StreamingTableExtractor.extract(getGUIDriver().getHtmlSource(), TABLE_ATTRIBUTE,
+                tableAttributeValue, firstRow, maxRows);
+    }
 
-        return nodes;
+    /**
+     * 
+     * @param content
+     *            the content read from the page
+     * @return the visible headers
+     * @throws WidgetException
+     *             if the table has no header cells
+     */
+    private List<String> getTableHeaders(TableContent content) throws WidgetException {
+        if (content.getHeaderCellCount() == 0) {
+            throw new WidgetException("Table headers do not exist", generateXPathLocator());
+        }
+        return content.getHeaders();
     }
 
     /**
      * 
-     * @param rowNumber
-     *            which row is desired
-     * @return an array of strings with the data of that row
+     * @param content
+     *            the content read from the page
+     * @return the visible rows
+     * @throws WidgetException
+     *             if the table has no tbody
+     */
+    private List<String[]> getTableDataInArray(TableContent content) throws WidgetException {
+        if (!content.isBodyFound()) {
+            throw new WidgetException("Table body does not exist", generateXPathLocator());
+        }
+        return content.getRows();
+    }
+
+    /**
+     * 
+     * @param xpath
+     *            of the NodeList
+     * @return a list of nodes found at the xpath
      * @throws Exception
      */
-    private String[] getTableRowDataArray(int rowNumber) throws Exception {
-        List<String[]> tableData = getTableDataInArray();
-        return tableData.get(rowNumber - 1);
+    private NodeList getNodeListUsingJavaXPath(String xpath) throws Exception {
+        Node htmlNode = PageSnapshotCache.getInstance().getDocument(getGUIDriver());
+        NodeList nodes = (NodeList) XPathExpressionCache.getInstance().evaluate(xpath, htmlNode,
+                XPathConstants.NODESET);
+
+        return nodes;
     }
 
     /**
@@ -398,42 +572,47 @@ public class Table extends InteractiveElement implements ITable {
      * @throws Exception
      */
     private String getRecursiveTextContext(Node n) throws Exception {
+        StringBuilder textContent = new StringBuilder();
+        appendRecursiveTextContext(n, textContent);
+        return textContent.toString();
+    }
 
+    /**
+     * 
+     * @param n
+     *            the node to start with
+     * @param textContent
+     *            receives the text content found, leaving out hidden nodes
+     * @throws Exception
+     */
+    private void appendRecursiveTextContext(Node n, StringBuilder textContent) throws Exception {
         if (n == null) {
-            return "";
-        } else {
-            if (n.getNodeType() != Node.TEXT_NODE) {
-                NamedNodeMap attrs = n.getAttributes();
-                Node styleAttr = null;
-                if (attrs != null)
-                {
-                    styleAttr = attrs.getNamedItem("style");
-                }
-                NodeList cnl = null;
-                if (styleAttr != null) {
-                    String style = styleAttr.getTextContent();
-                    style = style.toLowerCase();
-                    if (!(style.contains("display: none") || style.contains("visibility: hidden"))) {
-                        cnl = n.getChildNodes();
-                    }
-                } else {
-                    cnl = n.getChildNodes();
-                }
+            return;
+        }
 
-                if (cnl != null && cnl.getLength() > 0) {
-                    String textContent = "";
-                    for (int i = 0; i < cnl.getLength(); i++) {
-                        textContent += getRecursiveTextContext(cnl.item(i));
-                    }
+        if (n.getNodeType() == Node.TEXT_NODE) {
+            textContent.append(n.getTextContent());
+            return;
+        }
 
-                    return textContent;
-                } else {
-                    return "";
-                }
-            } else {
-                return n.getTextContent();
+        NamedNodeMap attrs = n.getAttributes();
+        Node styleAttr = null;
+        if (attrs != null)
+        {
+            styleAttr = attrs.getNamedItem("style");
+        }
+        if (styleAttr != null) {
+            String style = styleAttr.getTextContent();
+            style = style.toLowerCase();
+            if (style.contains("display: none") || style.contains("visibility: hidden")) {
+                return;
             }
         }
+
+        NodeList cnl = n.getChildNodes();
+        for (int i = 0; i < cnl.getLength(); i++) {
+            appendRecursiveTextContext(cnl.item(i), textContent);
+        }
     }
 
     /**
@@ -492,4 +671,51 @@ public class Table extends InteractiveElement implements ITable {
 
         throw new NoSuchElementException("Could not find table element at " + locator);
     }
+
+    /**
+     * Reads the rows of the table in pages of {@link #ROW_PAGE_SIZE} rows with
+     * the script engine, each page when it is reached
+     */
+    private class PagedRowIterator implements Iterator<String[]> {
+
+        private List<String[]> page = null;
+        private int pageIndex = 0;
+        private int nextRow = 0;
+        private boolean lastPage = false;
+
+        @Override
+        public boolean hasNext() {
+            if (page == null || (pageIndex >= page.size() && !lastPage)) {
+                readPage();
+            }
+            return pageIndex < page.size();
+        }
+
+        @Override
+        public String[] next() {
+            if (!hasNext()) {
+                throw new java.util.NoSuchElementException();
+            }
+            return page.get(pageIndex++);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private void readPage() {
+            try {
+                page = getTableDataInArray(getTableContent(nextRow, ROW_PAGE_SIZE, false));
+            } catch (Exception e) {
+                // Iterator methods can not throw the checked WidgetException
+                throw new RuntimeException(new WidgetException(
+                        "Error while getting table rows from row " + (nextRow + 1),
+                        getByLocator(), e));
+            }
+            pageIndex = 0;
+            nextRow += page.size();
+            lastPage = page.size() < ROW_PAGE_SIZE;
+        }
+    }
 }
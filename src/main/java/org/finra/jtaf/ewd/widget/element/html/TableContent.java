@@ -0,0 +1,75 @@
+/*
+ * (C) Copyright 2013 Java Test Automation Framework Contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.finra.jtaf.ewd.widget.element.html;
+
+import java.util.List;
+
+/**
+ * The headers and visible rows of a {@link Table}, as read in one pass by
+ * one of its extraction engines
+ */
+final class TableContent {
+
+    private final List<String> headers;
+    private final int headerCellCount;
+    private final List<String[]> rows;
+    private final int rowCount;
+    private final boolean bodyFound;
+
+    /**
+     *
+     * @param headers
+     *            the text of the visible header cells
+     * @param headerCellCount
+     *            the number of header cells, hidden ones included
+     * @param rows
+     *            the text of the visible cells of the visible rows read
+     * @param rowCount
+     *            the number of visible rows passed over, including the rows
+     *            skipped before the ones read
+     * @param bodyFound
+     *            whether the table has a tbody
+     */
+    TableContent(List<String> headers, int headerCellCount, List<String[]> rows, int rowCount,
+            boolean bodyFound) {
+        this.headers = headers;
+        this.headerCellCount = headerCellCount;
+        this.rows = rows;
+        this.rowCount = rowCount;
+        this.bodyFound = bodyFound;
+    }
+
+    List<String> getHeaders() {
+        return headers;
+    }
+
+    int getHeaderCellCount() {
+        return headerCellCount;
+    }
+
+    List<String[]> getRows() {
+        return rows;
+    }
+
+    int getRowCount() {
+        return rowCount;
+    }
+
+    boolean isBodyFound() {
+        return bodyFound;
+    }
+}
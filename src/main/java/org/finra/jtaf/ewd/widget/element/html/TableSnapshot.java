@@ -0,0 +1,290 @@
+/*
+ * (C) Copyright 2013 Java Test Automation Framework Contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.finra.jtaf.ewd.widget.element.html;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.finra.jtaf.ewd.utils.PageSnapshotCache;
+import org.finra.jtaf.ewd.widget.WidgetException;
+
+/**
+ * The content of a {@link Table} read once, so that many lookups can be
+ * answered without reading the table again.
+ * <p>
+ * Cells are held per column. Lookups by column value use a hash index of the
+ * column, built the first time the column is queried or when requested with
+ * {@link #index(String...)}. The snapshot does not follow the page; use
+ * {@link #refresh()} or {@link #refreshIfStale()} after the table changed.
+ */
+public class TableSnapshot {
+
+    private final Table table;
+
+    private List<String> headers;
+    private Map<String, Integer> columnsByHeader;
+    private String[][] columns;
+    private int[] rowLengths;
+    private int rowCount;
+    private String version;
+
+    private final Map<Integer, Map<String, List<Integer>>> indexes = new HashMap<Integer, Map<String, List<Integer>>>();
+
+    /**
+     *
+     * @param table
+     *            the table to read
+     * @throws WidgetException
+     */
+    TableSnapshot(Table table) throws WidgetException {
+        this.table = table;
+        refresh();
+    }
+
+    /**
+     * Read the table again
+     *
+     * @throws WidgetException
+     */
+    public synchronized void refresh() throws WidgetException {
+        TableContent content = table.readTableContent();
+        List<String[]> rows = content.getRows();
+
+        int columnCount = 0;
+        for (String[] row : rows) {
+            columnCount = Math.max(columnCount, row.length);
+        }
+        String[][] newColumns = new String[columnCount][rows.size()];
+        int[] newRowLengths = new int[rows.size()];
+        for (int r = 0; r < rows.size(); r++) {
+            String[] row = rows.get(r);
+            newRowLengths[r] = row.length;
+            for (int c = 0; c < row.length; c++) {
+                newColumns[c][r] = row[c];
+            }
+        }
+
+        // As in Table.getTableDataInMap, a repeated header names the last
+        // column with that header
+        Map<String, Integer> newColumnsByHeader = new HashMap<String, Integer>();
+        for (int c = 0; c < content.getHeaders().size(); c++) {
+            newColumnsByHeader.put(content.getHeaders().get(c), c);
+        }
+
+        headers = Collections.unmodifiableList(new ArrayList<String>(content.getHeaders()));
+        columnsByHeader = newColumnsByHeader;
+        columns = newColumns;
+        rowLengths = newRowLengths;
+        rowCount = rows.size();
+        indexes.clear();
+        version = PageSnapshotCache.getInstance().getDocumentVersion(table.getGUIDriver());
+    }
+
+    /**
+     * Read the table again if the page changed since it was last read. If the
+     * browser can not tell whether the page changed, the table is always
+     * read again.
+     *
+     * @return true if the table was read again
+     * @throws WidgetException
+     */
+    public synchronized boolean refreshIfStale() throws WidgetException {
+        if (!isStale()) {
+            return false;
+        }
+        refresh();
+        return true;
+    }
+
+    /**
+     *
+     * @return true if the page may have changed since the table was read
+     */
+    public synchronized boolean isStale() {
+        if (version == null) {
+            return true;
+        }
+        return !version.equals(PageSnapshotCache.getInstance().getDocumentVersion(
+                table.getGUIDriver()));
+    }
+
+    /**
+     * Build the hash indexes of columns ahead of the lookups which use them
+     *
+     * @param headers
+     *            the headers of the columns to index
+     * @throws WidgetException
+     *             if a column does not exist
+     */
+    public synchronized void index(String... headers) throws WidgetException {
+        for (String header : headers) {
+            getIndex(getColumn(header));
+        }
+    }
+
+    /**
+     *
+     * @return the visible headers of the table
+     */
+    public synchronized List<String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     *
+     * @return the number of visible rows
+     */
+    public synchronized int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     *
+     * @param rowNumber
+     *            the row, starting at 1
+     * @param columnNumber
+     *            the column, starting at 1
+     * @return the text of the cell, or null if the row has no such cell
+     * @throws WidgetException
+     *             if the row or column does not exist
+     */
+    public synchronized String getTableRowColumnData(int rowNumber, int columnNumber)
+            throws WidgetException {
+        if (rowNumber < 1 || rowNumber > rowCount || columnNumber < 1
+                || columnNumber > columns.length) {
+            throw new WidgetException("No cell at row=" + rowNumber + " column=" + columnNumber,
+                    table.getByLocator());
+        }
+        return columns[columnNumber - 1][rowNumber - 1];
+    }
+
+    /**
+     *
+     * @param rowNumber
+     *            the row, starting at 1
+     * @return the text of the visible cells of the row
+     * @throws WidgetException
+     *             if the row does not exist
+     */
+    public synchronized String[] getRow(int rowNumber) throws WidgetException {
+        if (rowNumber < 1 || rowNumber > rowCount) {
+            throw new WidgetException("No row " + rowNumber, table.getByLocator());
+        }
+        String[] row = new String[rowLengths[rowNumber - 1]];
+        for (int c = 0; c < row.length; c++) {
+            row[c] = columns[c][rowNumber - 1];
+        }
+        return row;
+    }
+
+    /**
+     *
+     * @param item
+     *            header to cell text of the row to look for
+     * @return true if a row matches every entry of the item
+     * @throws WidgetException
+     *             if a header does not exist
+     */
+    public synchronized boolean isItemExist(Map<String, String> item) throws WidgetException {
+        return getRowNumber(item) != -1;
+    }
+
+    /**
+     *
+     * @param item
+     *            header to cell text of the row to look for
+     * @return the number, starting at 1, of the first row which matches every
+     *         entry of the item, or -1 if there is none
+     * @throws WidgetException
+     *             if a header does not exist
+     */
+    public synchronized int getRowNumber(Map<String, String> item) throws WidgetException {
+        if (item.isEmpty()) {
+            return rowCount > 0 ? 1 : -1;
+        }
+
+        // Walk the shortest list of candidates and check the other columns
+        List<Integer> candidates = null;
+        for (Map.Entry<String, String> entry : item.entrySet()) {
+            List<Integer> rows = getIndex(getColumn(entry.getKey())).get(entry.getValue());
+            if (rows == null) {
+                return -1;
+            }
+            if (candidates == null || rows.size() < candidates.size()) {
+                candidates = rows;
+            }
+        }
+
+        for (int row : candidates) {
+            if (matches(row, item)) {
+                return row + 1;
+            }
+        }
+        return -1;
+    }
+
+    private boolean matches(int row, Map<String, String> item) throws WidgetException {
+        for (Map.Entry<String, String> entry : item.entrySet()) {
+            String actual = columns[getColumn(entry.getKey())][row];
+            if (actual == null || !actual.equals(entry.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int getColumn(String header) throws WidgetException {
+        Integer column = columnsByHeader.get(header);
+        if (column == null) {
+            throw new WidgetException("Table header " + header + " does not exist",
+                    table.getByLocator());
+        }
+        return column;
+    }
+
+    /**
+     *
+     * @param column
+     *            the index of the column
+     * @return cell text to the ascending indexes of the rows with that text
+     */
+    private Map<String, List<Integer>> getIndex(int column) {
+        Map<String, List<Integer>> index = indexes.get(column);
+        if (index == null) {
+            index = new HashMap<String, List<Integer>>();
+            if (column < columns.length) {
+                String[] cells = columns[column];
+                for (int r = 0; r < cells.length; r++) {
+                    if (cells[r] == null) {
+                        continue;
+                    }
+                    List<Integer> rows = index.get(cells[r]);
+                    if (rows == null) {
+                        rows = new ArrayList<Integer>(1);
+                        index.put(cells[r], rows);
+                    }
+                    rows.add(r);
+                }
+            }
+            indexes.put(column, index);
+        }
+        return index;
+    }
+}
@@ -17,9 +17,13 @@
 package org.finra.jtaf.ewd.session;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.finra.jtaf.ewd.ExtWebDriver;
+import org.finra.jtaf.ewd.TimeOutException;
 import org.finra.jtaf.ewd.impl.DefaultExtWebDriver;
 import org.finra.jtaf.ewd.impl.DefaultSessionFactory;
 import org.junit.After;
@@ -172,6 +176,214 @@ public class SessionManagerTests {
 		Assert.assertNull(ewd);
 	}
 
+	@Test
+	public void testHeadlessSessionsHaveOwnInteractionLock() throws Exception {
+		ExtWebDriver first = SessionManager.getInstance().getNewSession();
+		ExtWebDriver second = SessionManager.getInstance().getNewSession();
+		Assert.assertNotSame(first.getInteractionLock(), second.getInteractionLock());
+		Assert.assertNotSame(InteractionLock.getDesktopLock(), first.getInteractionLock());
+	}
+
+	@Test
+	public void testInteractionLockCountsContention() throws Exception {
+		final InteractionLock lock = new InteractionLock("test");
+		lock.lock();
+		Thread waiter = new Thread() {
+			@Override
+			public void run() {
+				lock.lock();
+				lock.unlock();
+			}
+		};
+		waiter.start();
+		Thread.sleep(100);
+		lock.unlock();
+		waiter.join(5000);
+
+		Assert.assertEquals(2, lock.getAcquisitions());
+		Assert.assertEquals(1, lock.getContentions());
+		Assert.assertTrue(lock.getWaitTime() >= 50);
+	}
+
+	@Test
+	public void testSessionPoolReusesBrowser() throws Exception {
+		// a pool of its own, as other tests create sessions in parallel
+		SessionPool pool = new SessionPool(0, 2, 60000);
+		SessionFactory factory = new DefaultSessionFactory();
+		Map<String, String> options = factory.createDefaultOptions();
+		try {
+			WebDriver browser = pool.lease(factory, options);
+			Assert.assertTrue(pool.release(browser));
+			Assert.assertFalse(pool.release(browser));
+
+			Assert.assertSame(browser, pool.lease(factory, options));
+			// the browser served two sessions and is quit
+			Assert.assertTrue(pool.release(browser));
+
+			WebDriver other = pool.lease(factory, options);
+			Assert.assertNotSame(browser, other);
+			Assert.assertTrue(pool.release(other));
+			Assert.assertEquals(1, pool.getIdleCount(factory, options));
+
+			Assert.assertEquals(2, pool.getCreated());
+			Assert.assertEquals(1, pool.getReused());
+			Assert.assertEquals(1, pool.getRetired());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testSessionPoolHoldsAdmissionPermits() throws Exception {
+		// a limit and a pool of their own, as other tests create sessions in
+		// parallel
+		SessionAdmission admission = new SessionAdmission();
+		admission.setMaxSessions(2);
+		SessionPool pool = new SessionPool(1, 10, 60000, admission);
+		SessionFactory factory = new DefaultSessionFactory();
+		Map<String, String> options = factory.createDefaultOptions();
+		options.put("sessionAdmissionTimeout", "100");
+		try {
+			WebDriver first = pool.lease(factory, options);
+			// the pool starts a browser in the background with the last permit
+			long end = System.currentTimeMillis() + 60000;
+			while (pool.getIdleCount(factory, options) == 0 && System.currentTimeMillis() < end) {
+				Thread.sleep(50);
+			}
+			WebDriver second = pool.lease(factory, options);
+			// no permit is free to start another one
+			Assert.assertEquals(0, pool.getIdleCount(factory, options));
+			Assert.assertEquals(2, pool.getCreated());
+			try {
+				pool.lease(factory, options);
+				Assert.fail("The pool should not run more browsers than allowed");
+			} catch (TimeOutException e) {
+				Assert.assertEquals(2, pool.getCreated());
+			}
+
+			// idle browsers keep their permits
+			Assert.assertTrue(pool.release(second));
+			Assert.assertTrue(pool.release(first));
+			Assert.assertEquals(2, pool.getIdleCount(factory, options));
+			try {
+				admission.acquire(100);
+				Assert.fail("Idle browsers should count against the limit");
+			} catch (TimeOutException e) {
+				Assert.assertEquals(2, admission.getTimeouts());
+			}
+
+			// a lease of other options quits an idle browser to free a permit
+			Map<String, String> otherOptions = new HashMap<String, String>(options);
+			otherOptions.put("sessionAdmissionTimeout", "200");
+			WebDriver other = pool.lease(factory, otherOptions);
+			Assert.assertEquals(1, pool.getRetired());
+			Assert.assertEquals(1, pool.getIdleCount(factory, options));
+			Assert.assertTrue(pool.release(other));
+		} finally {
+			pool.shutdown();
+		}
+
+		// quitting the browsers gave back their permits
+		admission.cancel(admission.acquire(100));
+		Assert.assertEquals(2, admission.getTimeouts());
+	}
+
+	@Test
+	public void testGetNewSessionsAsync() throws Exception {
+		List<Future<ExtWebDriver>> futures = SessionManager.getInstance().getNewSessionsAsync(2);
+		Assert.assertEquals(2, futures.size());
+		ExtWebDriver first = futures.get(0).get();
+		ExtWebDriver second = futures.get(1).get();
+		Assert.assertNotSame(first.getWrappedDriver(), second.getWrappedDriver());
+		Assert.assertSame(first, SessionManager.getInstance().getSession(first.getSessionId()));
+		Assert.assertSame(second, SessionManager.getInstance().getSession(second.getSessionId()));
+		first.close();
+		second.close();
+	}
+
+	@Test
+	public void testGetNewSessionsAsyncReportsFailures() throws Exception {
+		List<Future<ExtWebDriver>> futures = SessionManager.getInstance()
+				.setSessionFactory(new FailFactory()).getNewSessionsAsync(2);
+		for (Future<ExtWebDriver> future : futures) {
+			try {
+				future.get();
+				Assert.fail("The session should not have been created");
+			} catch (ExecutionException e) {
+				Assert.assertNotNull(e.getCause());
+			}
+		}
+		Assert.assertEquals(0, SessionManager.getInstance().getSessions().size());
+	}
+
+	@Test
+	public void testRegistryReapsSessionsOfDeadThreads() throws Exception {
+		final ExtWebDriver[] orphan = new ExtWebDriver[1];
+		Thread thread = new Thread() {
+			@Override
+			public void run() {
+				try {
+					orphan[0] = SessionManager.getInstance().getNewSession();
+				} catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+			}
+		};
+		thread.start();
+		thread.join();
+		Assert.assertNotNull(orphan[0]);
+
+		ExtWebDriver own = SessionManager.getInstance().getNewSession();
+		Assert.assertFalse(own.getSessionId().equals(orphan[0].getSessionId()));
+
+		SessionRegistry registry = SessionRegistry.getInstance();
+		Assert.assertSame(orphan[0], registry.getSessions().get(orphan[0].getSessionId()));
+		List<String> reaped = registry.reap();
+		Assert.assertTrue(reaped.contains(orphan[0].getSessionId()));
+		Assert.assertFalse(reaped.contains(own.getSessionId()));
+		Assert.assertNull(registry.getSessions().get(orphan[0].getSessionId()));
+
+		own.close();
+		Assert.assertNull(registry.getSessions().get(own.getSessionId()));
+	}
+
+	@Test
+	public void testAdmissionLimitsOpenSessions() throws Exception {
+		// an admission controller of its own, as other tests create sessions
+		// in parallel
+		SessionAdmission admission = new SessionAdmission();
+		admission.setMaxSessions(1);
+
+		ExtWebDriver first = new DefaultExtWebDriver();
+		admission.admit(first, admission.acquire(100));
+		try {
+			admission.acquire(100);
+			Assert.fail("The second session should not have been admitted");
+		} catch (TimeOutException e) {
+			Assert.assertEquals(1, admission.getTimeouts());
+		}
+
+		admission.release(first);
+		admission.release(first);
+		ExtWebDriver second = new DefaultExtWebDriver();
+		admission.admit(second, admission.acquire(100));
+		Assert.assertEquals(1, admission.getActiveSessions());
+		Assert.assertEquals(2, admission.getAdmissions());
+		Assert.assertEquals(0, admission.getQueueLength());
+
+		// a lower limit holds back new sessions until enough are closed
+		admission.setMaxSessions(2);
+		admission.admit(first, admission.acquire(100));
+		admission.setMaxSessions(1);
+		admission.release(first);
+		try {
+			admission.acquire(100);
+			Assert.fail("The limit should have been lowered");
+		} catch (TimeOutException e) {
+			Assert.assertEquals(2, admission.getTimeouts());
+		}
+	}
+
 	class FailFactory extends DefaultSessionFactory{
 		   @Override
 		    public Map<String, String> createDefaultOptions() {
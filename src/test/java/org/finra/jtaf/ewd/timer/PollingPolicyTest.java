@@ -0,0 +1,91 @@
+/*
+ * (C) Copyright 2013 Java Test Automation Framework Contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.finra.jtaf.ewd.timer;
+
+import org.finra.jtaf.ewd.timer.WaitForConditionTimer.ITimerCallback;
+import org.junit.Assert;
+import org.junit.Test;
+import org.openqa.selenium.By;
+
+public class PollingPolicyTest {
+
+    @Test
+    public void testExponentialIsCapped() {
+        PollingPolicy policy = PollingPolicy.exponential(50, 2, 500);
+        Assert.assertEquals(50, policy.getInterval(1));
+        Assert.assertEquals(100, policy.getInterval(2));
+        Assert.assertEquals(400, policy.getInterval(4));
+        Assert.assertEquals(500, policy.getInterval(5));
+        Assert.assertEquals(500, policy.getInterval(50));
+    }
+
+    @Test
+    public void testFastFirst() {
+        PollingPolicy policy = PollingPolicy.fastFirst(10, 3, 300);
+        Assert.assertEquals(10, policy.getInterval(3));
+        Assert.assertEquals(300, policy.getInterval(4));
+    }
+
+    @Test
+    public void testJitteredStaysInRange() {
+        PollingPolicy policy = PollingPolicy.jittered(200, 100);
+        for (int i = 1; i <= 100; i++) {
+            long interval = policy.getInterval(i);
+            Assert.assertTrue("Interval out of range: " + interval, interval >= 100 && interval <= 300);
+        }
+    }
+
+    @Test
+    public void testParse() {
+        Assert.assertEquals(250, PollingPolicy.parse("fixed", "250").getInterval(10));
+        Assert.assertEquals(50, PollingPolicy.parse(null, null).getInterval(1));
+        Assert.assertEquals(500, PollingPolicy.parse(null, null).getInterval(10));
+        Assert.assertEquals(800, PollingPolicy.parse("FastFirst", "800").getInterval(6));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseUnknownPolicy() {
+        PollingPolicy.parse("linear", null);
+    }
+
+    @Test
+    public void testTimerRecordsWait() throws Exception {
+        final long metAt = System.currentTimeMillis() + 20;
+        WaitForConditionTimer timer = new WaitForConditionTimer(By.id("none"),
+                new ITimerCallback() {
+                    @Override
+                    public boolean execute() {
+                        return System.currentTimeMillis() >= metAt;
+                    }
+                }, PollingPolicy.fixed(5));
+
+        timer.waitUntil(5000);
+        Assert.assertTrue("The condition should be met well before a fixed 500 ms poll",
+                timer.getElapsedTime() < 400);
+        Assert.assertTrue(timer.getIterations() > 1);
+    }
+
+    @Test(expected = WidgetTimeoutException.class)
+    public void testTimerTimesOut() throws Exception {
+        new WaitForConditionTimer(By.id("none"), new ITimerCallback() {
+            @Override
+            public boolean execute() {
+                return false;
+            }
+        }, PollingPolicy.fixed(5)).waitUntil(30);
+    }
+}
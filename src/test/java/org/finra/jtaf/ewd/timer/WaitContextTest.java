@@ -0,0 +1,108 @@
+/*
+ * (C) Copyright 2013 Java Test Automation Framework Contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.finra.jtaf.ewd.timer;
+
+import org.finra.jtaf.ewd.timer.WaitForConditionTimer.ITimerCallback;
+import org.junit.Assert;
+import org.junit.Test;
+import org.openqa.selenium.By;
+
+public class WaitContextTest {
+
+    private static final ITimerCallback NEVER = new ITimerCallback() {
+        @Override
+        public boolean execute() {
+            return false;
+        }
+    };
+
+    @Test
+    public void testCancelStopsWait() throws Exception {
+        final CancellationToken token = new CancellationToken();
+        new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    // cancel at once
+                }
+                token.cancel();
+            }
+        }.start();
+
+        long start = System.currentTimeMillis();
+        WaitContext context = WaitContext.open(WaitContext.NO_DEADLINE, token);
+        try {
+            new WaitForConditionTimer(By.id("none"), NEVER, PollingPolicy.fixed(1000))
+                    .waitUntil(10000);
+            Assert.fail("The wait should have been cancelled");
+        } catch (WaitCancelledException e) {
+            Assert.assertTrue("The wait should stop soon after the cancel",
+                    System.currentTimeMillis() - start < 900);
+        } finally {
+            context.close();
+        }
+    }
+
+    @Test
+    public void testDeadlineBoundsWait() throws Exception {
+        WaitContext context = WaitContext.open(System.currentTimeMillis() + 200, null);
+        long start = System.currentTimeMillis();
+        try {
+            new WaitForConditionTimer(By.id("none"), NEVER, PollingPolicy.fixed(50))
+                    .waitUntil(10000);
+            Assert.fail("The wait should have timed out");
+        } catch (WaitCancelledException e) {
+            Assert.fail("The wait was not cancelled");
+        } catch (WidgetTimeoutException e) {
+            Assert.assertTrue(System.currentTimeMillis() - start < 1000);
+        } finally {
+            context.close();
+        }
+        Assert.assertEquals(WaitContext.NO_DEADLINE, WaitContext.getDeadline());
+    }
+
+    @Test
+    public void testNestedContextKeepsEarlierDeadline() {
+        long deadline = System.currentTimeMillis() + 1000;
+        WaitContext outer = WaitContext.open(deadline, null);
+        try {
+            WaitContext inner = WaitContext.open(deadline + 5000, null);
+            try {
+                Assert.assertEquals(deadline, WaitContext.getDeadline());
+            } finally {
+                inner.close();
+            }
+        } finally {
+            outer.close();
+        }
+    }
+
+    @Test
+    public void testInterruptStopsWait() throws Exception {
+        Thread.currentThread().interrupt();
+        try {
+            new WaitForConditionTimer(By.id("none"), NEVER).waitUntil(10000);
+            Assert.fail("The wait should have been cancelled");
+        } catch (WaitCancelledException e) {
+            Assert.assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * (C) Copyright 2013 Java Test Automation Framework Contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.finra.jtaf.ewd.timer;
+
+import java.util.List;
+
+import org.finra.jtaf.ewd.timer.WaitForConditionTimer.ITimerCallback;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.openqa.selenium.By;
+
+public class WaitStatisticsTest {
+
+    @After
+    public void tearDown() {
+        WaitStatistics.getInstance().setEnabled(false);
+        WaitStatistics.getInstance().reset();
+    }
+
+    @Test
+    public void testHistogramPercentiles() {
+        WaitHistogram histogram = new WaitHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        Assert.assertEquals(1000, histogram.getCount());
+        Assert.assertEquals(1000, histogram.getMax());
+        Assert.assertEquals(500.5, histogram.getMean(), 0.001);
+        long median = histogram.getValueAtPercentile(50);
+        Assert.assertTrue("Median out of range: " + median, median >= 500 && median <= 530);
+        Assert.assertEquals(1000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testTimerRecordsWhenEnabled() throws Exception {
+        WaitStatistics.getInstance().setEnabled(true);
+        final long metAt = System.currentTimeMillis() + 20;
+        new WaitForConditionTimer(By.id("stats"), new ITimerCallback() {
+            @Override
+            public boolean execute() {
+                return System.currentTimeMillis() >= metAt;
+            }
+        }, PollingPolicy.fixed(5)).waitUntil(5000);
+
+        List<WaitStatistics.Entry> entries = WaitStatistics.getInstance().getEntries();
+        Assert.assertEquals(1, entries.size());
+        WaitStatistics.Entry entry = entries.get(0);
+        Assert.assertEquals("testTimerRecordsWhenEnabled", entry.getCondition());
+        Assert.assertEquals(By.id("stats").toString(), entry.getLocator());
+        Assert.assertEquals(1, entry.getHistogram().getCount());
+        Assert.assertEquals(0, entry.getTimeouts());
+        Assert.assertTrue(entry.getIterations() > 1);
+        Assert.assertTrue(WaitStatistics.getInstance().getReport(5).contains(entry.toString()));
+    }
+
+    @Test
+    public void testNothingRecordedWhenDisabled() throws Exception {
+        new WaitForConditionTimer(By.id("stats"), new ITimerCallback() {
+            @Override
+            public boolean execute() {
+                return false;
+            }
+        }).isConditionMet(0);
+        Assert.assertTrue(WaitStatistics.getInstance().getEntries().isEmpty());
+    }
+}
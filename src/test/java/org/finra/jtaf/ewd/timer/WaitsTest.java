@@ -0,0 +1,85 @@
+/*
+ * (C) Copyright 2013 Java Test Automation Framework Contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.finra.jtaf.ewd.timer;
+
+import org.finra.jtaf.ewd.timer.WaitForConditionTimer.ITimerCallback;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class WaitsTest {
+
+    private static ITimerCallback metAfter(final long millis) {
+        final long metAt = System.currentTimeMillis() + millis;
+        return new ITimerCallback() {
+            @Override
+            public boolean execute() {
+                return System.currentTimeMillis() >= metAt;
+            }
+        };
+    }
+
+    private static ITimerCallback never() {
+        return new ITimerCallback() {
+            @Override
+            public boolean execute() throws Exception {
+                throw new Exception("never met");
+            }
+        };
+    }
+
+    @Test
+    public void testWaitForAllSharesDeadline() throws WidgetTimeoutException {
+        long start = System.currentTimeMillis();
+        Waits.waitForAll(2000, PollingPolicy.fixed(10), metAfter(300), metAfter(300),
+                metAfter(300), metAfter(300), metAfter(300));
+        Assert.assertTrue("The wait should be bounded by the slowest condition",
+                System.currentTimeMillis() - start < 1500);
+    }
+
+    @Test(expected = WidgetTimeoutException.class)
+    public void testWaitForAllTimesOut() throws WidgetTimeoutException {
+        Waits.waitForAll(200, PollingPolicy.fixed(10), metAfter(0), never());
+    }
+
+    @Test
+    public void testWaitForAny() throws WidgetTimeoutException {
+        int index = Waits.waitForAny(2000, PollingPolicy.fixed(10), never(), metAfter(50),
+                metAfter(5000));
+        Assert.assertEquals(1, index);
+    }
+
+    @Test(expected = WidgetTimeoutException.class)
+    public void testWaitForAnyTimesOut() throws WidgetTimeoutException {
+        Waits.waitForAny(200, PollingPolicy.fixed(10), never(), never());
+    }
+
+    @Test
+    public void testInterruptedConditionCancelsWait() throws WidgetTimeoutException {
+        ITimerCallback interrupted = new ITimerCallback() {
+            @Override
+            public boolean execute() throws Exception {
+                throw new InterruptedException();
+            }
+        };
+        try {
+            Waits.waitForAll(2000, PollingPolicy.fixed(10), interrupted);
+            Assert.fail("The wait should have been cancelled");
+        } catch (WaitCancelledException e) {
+            Assert.assertTrue(Thread.interrupted());
+        }
+    }
+}
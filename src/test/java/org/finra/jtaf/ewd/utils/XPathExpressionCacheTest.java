@@ -0,0 +1,51 @@
+/*
+ * (C) Copyright 2013 Java Test Automation Framework Contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.finra.jtaf.ewd.utils;
+
+import javax.xml.xpath.XPathConstants;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+public class XPathExpressionCacheTest {
+
+    private static final String HTML = "<html><body><table id='t'><tr><td>a</td><td>b</td></tr></table></body></html>";
+
+    @Test
+    public void testEvaluateReusesCompiledExpression() throws Exception {
+        XPathExpressionCache cache = XPathExpressionCache.getInstance();
+        Node document = PageSnapshotCache.parse(HTML);
+        String xpath = "//table[@id='t']//td[@class='XPathExpressionCacheTest']";
+
+        cache.evaluate(xpath, document, XPathConstants.NODESET);
+        long hits = cache.getHitCount();
+        NodeList nodes = (NodeList) cache.evaluate("  " + xpath + " ", document,
+                XPathConstants.NODESET);
+
+        Assert.assertEquals("Test that the xpath is still evaluated", 0, nodes.getLength());
+        Assert.assertTrue("Test that the trimmed xpath hits the cache", cache.getHitCount() > hits);
+    }
+
+    @Test
+    public void testEvaluateString() throws Exception {
+        Node document = PageSnapshotCache.parse(HTML);
+        Assert.assertEquals("Test evaluating a string result", "b", XPathExpressionCache
+                .getInstance().evaluate("//td[2]", document, XPathConstants.STRING));
+    }
+}
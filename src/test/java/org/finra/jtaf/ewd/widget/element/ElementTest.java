@@ -16,9 +16,15 @@
  */
 package org.finra.jtaf.ewd.widget.element;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import org.finra.jtaf.ewd.ExtWebDriver;
 import org.finra.jtaf.ewd.HighlightProvider;
 import org.finra.jtaf.ewd.session.SessionManager;
+import org.finra.jtaf.ewd.widget.ElementGeometry;
+import org.finra.jtaf.ewd.widget.ElementState;
 import org.finra.jtaf.ewd.widget.IElement;
 import org.finra.jtaf.ewd.widget.IInteractiveElement;
 import org.finra.jtaf.ewd.widget.WidgetException;
@@ -171,6 +177,26 @@ public class ElementTest {
     	Assert.assertTrue("Testing isElementVisible on a hidden button should be return false", hidden.isElementVisible());	
     }
     
+    @Test
+    public void testIsElementVisibleZeroSize() throws WidgetException{
+    	wd.open(url);
+    	IElement squeezed = new Element("zeroSizeDiv");
+    	Assert.assertFalse(squeezed.isElementVisible());
+    	Assert.assertFalse(squeezed.isElementVisible(500));
+    }
+    
+    @Test
+    public void testGetGeometry() throws WidgetException{
+    	wd.open(url);
+    	ElementGeometry visible = new Element(button).getGeometry();
+    	Assert.assertTrue(visible.isDisplayed());
+    	Assert.assertTrue(visible.getViewportWidth() > 0 && visible.getViewportHeight() > 0);
+    	Assert.assertEquals(0, visible.getScrollY());
+    	
+    	ElementGeometry hidden = new Element(invisibleButton).getGeometry();
+    	Assert.assertFalse(hidden.isDisplayed());
+    }
+    
     @Test(expected=WidgetException.class)
     public void testIsElementVisibleException() throws WidgetException{
     	wd.open(url);
@@ -221,6 +247,83 @@ public class ElementTest {
     	waitForElement.waitForElementPresent();
     }
     
+    @Test
+    public void testWaitForElementPresentEventDriven() throws WidgetException{
+    	wd.open(url);
+    	wd.setEventDrivenWaitMode(true);
+    	wd.setScriptTimeout(1234);
+    	
+    	IInteractiveElement clickButton = new Button(getButton("testWaitButton"));
+    	IElement waitForElement = new Element(getSpan("waitForSpan"));
+    	
+    	clickButton.click();
+    	waitForElement.waitForElementPresent();
+    	waitForElement.waitForText();
+    	Assert.assertEquals(1234, wd.getScriptTimeout());
+    }
+    
+    @Test(expected=WidgetException.class)
+    public void testWaitForElementPresentEventDrivenTimeout() throws WidgetException{
+    	wd.open(url);
+    	wd.setEventDrivenWaitMode(true);
+    	
+    	IElement waitForElement = new Element(getSpan("failMe"));
+    	waitForElement.waitForElementPresent(1000);
+    }
+    
+    @Test
+    public void testWebElementCaching() throws WidgetException{
+    	wd.open(url);
+    	wd.setWebElementCaching(true);
+    	
+    	Element e = new Element(getSpan("someText"));
+    	Assert.assertEquals("Here is some text", e.getText());
+    	Assert.assertEquals("Here is some text", e.getText());
+    	Assert.assertEquals(1, e.getWebElementCacheMisses());
+    	Assert.assertTrue(e.getWebElementCacheHits() > 0);
+    	
+    	// The cached span goes stale and is found again
+    	wd.eval("var s = document.getElementById('someText'); s.parentNode.replaceChild(s.cloneNode(true), s);");
+    	Assert.assertEquals("Here is some text", e.getText());
+    	Assert.assertEquals(2, e.getWebElementCacheMisses());
+    	
+    	wd.open(url);
+    	Assert.assertEquals("Here is some text", e.getText());
+    	Assert.assertEquals(3, e.getWebElementCacheMisses());
+    }
+    
+    @Test
+    public void testGetElementStates() throws WidgetException{
+    	wd.open(url);
+    	
+    	List<IElement> elements = new ArrayList<IElement>();
+    	elements.add(new Element(getButton("myButton")));
+    	elements.add(new Element("myInvisibleButton"));
+    	elements.add(new Element(By.id("disabledBtn")));
+    	elements.add(new Element(getSpan("failMe")));
+    	List<ElementState> states = wd.getElementStates(elements);
+    	
+    	Assert.assertEquals(4, states.size());
+    	Assert.assertTrue(states.get(0).isPresent());
+    	Assert.assertTrue(states.get(0).isVisible());
+    	Assert.assertEquals("Click me", states.get(0).getText());
+    	Assert.assertTrue(states.get(1).isPresent());
+    	Assert.assertFalse(states.get(1).isVisible());
+    	Assert.assertTrue(states.get(2).isPresent());
+    	Assert.assertFalse(states.get(2).isEnabled());
+    	Assert.assertFalse(states.get(3).isPresent());
+    	Assert.assertNull(states.get(3).getText());
+    	
+    	// Selenium's own locators are resolved in the page too
+    	Assert.assertEquals(Collections.singletonList("id"),
+    			InPageLocator.getStrategies(By.id("disabledBtn")));
+    	Assert.assertEquals("disabledBtn", InPageLocator.getLocator(By.id("disabledBtn")));
+    	Assert.assertEquals(Collections.singletonList("css selector"),
+    			InPageLocator.getStrategies(By.cssSelector("#disabledBtn")));
+    	Assert.assertEquals("//button", InPageLocator.getLocator(By.xpath("//button")));
+    	Assert.assertNull(InPageLocator.getStrategies(By.linkText("Click me")));
+    }
+    
     @Test
     public void testWaitForElementNotPresent() throws WidgetException{
     	wd.open(url);
@@ -449,6 +552,13 @@ public class ElementTest {
         Assert.assertFalse("Test that hasText returns false", element.hasText("This Be"));    	
     }
     
+    @Test
+    public void testHasTextWithoutChildren() throws WidgetException{
+    	wd.open(url);
+    	IElement element = new Element(getSpan("someText"));
+        Assert.assertTrue("Test that hasText finds the text of the element itself", element.hasText("some text"));
+    }
+    
     @Test(expected=WidgetException.class)
     public void testHasTextException() throws WidgetException{
     	wd.open(url);
@@ -563,6 +673,18 @@ public class ElementTest {
     	Assert.assertEquals(in.getValue(), "you focused!");
     }
     
+    @Test
+    public void testLocatorStrategyCacheHit() throws WidgetException {
+        wd.open(url);
+        LocatorStrategyCache cache = LocatorStrategyCache.getInstance();
+        IElement first = new Element("myButton");
+        Assert.assertTrue(first.isElementPresent(false));
+        long hits = cache.getHitCount();
+        IElement second = new Element("myButton");
+        Assert.assertTrue(second.isElementPresent(false));
+        Assert.assertTrue("Second lookup of an id locator should use the remembered strategy", cache.getHitCount() > hits);
+    }
+
     public String getRgb(String rgba){
     	if(rgba.startsWith("rgba") & rgba.split(",").length>3){
     		String[] splits = rgba.substring(rgba.indexOf("a")+1).split(",");
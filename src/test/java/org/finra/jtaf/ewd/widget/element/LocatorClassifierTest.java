@@ -0,0 +1,85 @@
+/*
+ * (C) Copyright 2013 Java Test Automation Framework Contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.finra.jtaf.ewd.widget.element;
+
+import org.finra.jtaf.ewd.widget.element.LocatorClassifier.LocatorType;
+import org.junit.Assert;
+import org.junit.Test;
+import org.openqa.selenium.By;
+
+public class LocatorClassifierTest {
+
+    @Test
+    public void testClassifyXPath() {
+        Assert.assertEquals("Test that an absolute path is an xpath", LocatorType.XPATH,
+                LocatorClassifier.classify("//button[@id='myButton']"));
+        Assert.assertEquals("Test that a grouped path is an xpath", LocatorType.XPATH,
+                LocatorClassifier.classify("(//a)[2]"));
+        Assert.assertEquals("Test that a relative path is an xpath", LocatorType.XPATH,
+                LocatorClassifier.classify("./td"));
+    }
+
+    @Test
+    public void testClassifyIdentifier() {
+        Assert.assertEquals("Test that a bare token is an identifier", LocatorType.IDENTIFIER,
+                LocatorClassifier.classify("myButton"));
+        Assert.assertEquals("Test that an element name is a tag name", LocatorType.TAG_NAME,
+                LocatorClassifier.classify("div"));
+    }
+
+    @Test
+    public void testClassifyCss() {
+        Assert.assertEquals("Test that an id selector is css", LocatorType.CSS,
+                LocatorClassifier.classify("#myButton"));
+        Assert.assertEquals("Test that a class selector is css", LocatorType.CSS,
+                LocatorClassifier.classify(".myClass"));
+    }
+
+    @Test
+    public void testCandidatesForXPath() {
+        By[] bys = LocatorClassifier.candidateStrategies("//button[@id='myButton']");
+        Assert.assertEquals("Test that an xpath is only tried as xpath", 1, bys.length);
+        Assert.assertEquals("Test that xpath is tried first",
+                By.xpath("//button[@id='myButton']"), bys[0]);
+    }
+
+    @Test
+    public void testCandidatesForIdentifier() {
+        By[] bys = LocatorClassifier.candidateStrategies("myButton");
+        Assert.assertEquals("Test that xpath is not tried for a bare token", 5, bys.length);
+        Assert.assertEquals("Test that id is tried first", By.id("myButton"), bys[0]);
+        Assert.assertEquals("Test that tag name is tried last", By.tagName("myButton"),
+                bys[bys.length - 1]);
+    }
+
+    @Test
+    public void testCandidatesForCssWithSpaces() {
+        By[] bys = LocatorClassifier.candidateStrategies("div > span");
+        for (By by : bys) {
+            Assert.assertNotEquals("Test that class name is not tried with whitespace",
+                    By.className("div > span"), by);
+            Assert.assertNotEquals("Test that tag name is not tried with whitespace",
+                    By.tagName("div > span"), by);
+        }
+    }
+
+    @Test
+    public void testCandidatesForEmptyLocator() {
+        Assert.assertEquals("Test that an empty locator tries every strategy", 6,
+                LocatorClassifier.candidateStrategies("").length);
+    }
+}
@@ -16,6 +16,8 @@
  */
 package org.finra.jtaf.ewd.widget.element.html;
 
+import java.util.List;
+
 import org.finra.jtaf.ewd.ExtWebDriver;
 import org.finra.jtaf.ewd.session.SessionManager;
 import org.finra.jtaf.ewd.widget.IElement;
@@ -69,6 +71,18 @@ public class HtmlListTest {
     	Assert.assertEquals("UL1", firstElement.getText());
     }
 
+    @Test
+    public void testGetItemsDistinct() throws WidgetException{
+    	wd.open(url);
+    	HtmlList htmlList = new HtmlList(htmlListLocator);
+    	List<IElement> items = htmlList.getItems();
+    	Assert.assertEquals(4, items.size());
+    	for (int i = 0; i < items.size(); i++) {
+    		Assert.assertEquals("UL" + (i + 1), items.get(i).getText());
+    	}
+    	Assert.assertEquals("UL3", htmlList.getItem(3).getText());
+    }
+
     @Test
     public void testGetItemCountException() throws WidgetException{
     	boolean exceptionThrown = false;
@@ -0,0 +1,112 @@
+/*
+ * (C) Copyright 2013 Java Test Automation Framework Contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.finra.jtaf.ewd.widget.element.html;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.finra.jtaf.ewd.ExtWebDriver;
+import org.finra.jtaf.ewd.session.SessionManager;
+import org.finra.jtaf.ewd.widget.WidgetException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class InteractiveTableTest {
+    public static String url = "http://localhost:29090/simpleapp/interactiveelements.html";
+    public ExtWebDriver wd;
+
+    protected String tableLocator = "//table[@id=\"interactiveTableTest\"]";
+
+    @Before
+    public void setup() throws Exception {
+        wd = SessionManager.getInstance().getCurrentSession();
+    }
+
+    @After
+    public void teardown() {
+        wd.close();
+        SessionManager.getInstance().removeSession(wd);
+    }
+
+    @Test
+    public void testSelectRow() throws WidgetException {
+        wd.open(url);
+        InteractiveTable table = new InteractiveTable(tableLocator);
+        table.selectRow(2);
+        List<String[]> selected = table.getSelectedRowsInArray();
+        Assert.assertEquals(1, selected.size());
+        Assert.assertArrayEquals(new String[] { "Row 2", "Two" }, selected.get(0));
+    }
+
+    @Test
+    public void testSelectRows() throws WidgetException {
+        wd.open(url);
+        InteractiveTable table = new InteractiveTable(tableLocator);
+        table.selectRows(1, 3);
+        List<Map<String, String>> selected = table.getSelectedRowsInMap();
+        Assert.assertEquals(2, selected.size());
+        Assert.assertEquals("Row 1", selected.get(0).get("Name"));
+        Assert.assertEquals("Three", selected.get(1).get("Value"));
+        Assert.assertEquals(2, table.getSelectedRowsElementsInArray().size());
+    }
+
+    @Test
+    public void testSelectRowsByItem() throws WidgetException {
+        wd.open(url);
+        InteractiveTable table = new InteractiveTable(tableLocator);
+        List<Map<String, String>> items = new ArrayList<Map<String, String>>();
+        Map<String, String> item = new HashMap<String, String>();
+        item.put("Value", "Three");
+        items.add(item);
+        item = new HashMap<String, String>();
+        item.put("Name", "Row 2");
+        items.add(item);
+        table.selectRows(items);
+        List<String[]> selected = table.getSelectedRowsInArray();
+        Assert.assertEquals(2, selected.size());
+        Assert.assertEquals("Row 2", selected.get(0)[0]);
+        Assert.assertEquals("Row 3", selected.get(1)[0]);
+    }
+
+    @Test
+    public void testDoubleClickRow() throws WidgetException {
+        wd.open(url);
+        InteractiveTable table = new InteractiveTable(tableLocator);
+        table.doubleClickRow(1, 1);
+        Assert.assertEquals("opened", table.getTableRowColumnData(1, 2));
+    }
+
+    @Test(expected = WidgetException.class)
+    public void testSelectRowNoSuchRow() throws WidgetException {
+        wd.open(url);
+        InteractiveTable table = new InteractiveTable(tableLocator);
+        table.selectRows(1, 4);
+    }
+
+    @Test(expected = WidgetException.class)
+    public void testSelectRowNoSuchItem() throws WidgetException {
+        wd.open(url);
+        InteractiveTable table = new InteractiveTable(tableLocator);
+        Map<String, String> item = new HashMap<String, String>();
+        item.put("Name", "Row 4");
+        table.selectRow(item);
+    }
+}
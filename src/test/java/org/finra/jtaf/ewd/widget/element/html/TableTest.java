@@ -18,11 +18,13 @@ package org.finra.jtaf.ewd.widget.element.html;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
 import org.finra.jtaf.ewd.ExtWebDriver;
 import org.finra.jtaf.ewd.session.SessionManager;
+import org.finra.jtaf.ewd.utils.PageSnapshotCache;
 import org.finra.jtaf.ewd.widget.ITable;
 import org.finra.jtaf.ewd.widget.WidgetException;
 import org.junit.After;
@@ -112,6 +114,47 @@ public class TableTest {
 
     }
 
+    @Test
+    public void testGetTableDataInMapReusesSnapshot() throws WidgetException{
+    	wd.open(url);
+    	ITable table = new Table(tableLocator);
+    	table.getTableHeaders();
+    	long hits = PageSnapshotCache.getInstance().getHitCount();
+    	table.getTableDataInMap();
+    	Assert.assertTrue("Page was parsed again although it did not change", PageSnapshotCache.getInstance().getHitCount() > hits);
+    }
+
+    @Test
+    public void testGetTableDataStreaming() throws WidgetException{
+    	assertSameAsDom(Table.ExtractionMode.STREAMING);
+    }
+
+    @Test
+    public void testGetTableDataScript() throws WidgetException{
+    	assertSameAsDom(Table.ExtractionMode.SCRIPT);
+    }
+
+    private void assertSameAsDom(Table.ExtractionMode mode) throws WidgetException{
+    	wd.open(url);
+    	// Each table marks the element with its own attribute value, so read
+    	// everything through the first one before creating the second
+    	Table domTable = new Table(tableLocator);
+    	List<String> expectedHeaders = domTable.getTableHeaders();
+    	List<String[]> expected = domTable.getTableDataInArray();
+    	List<Map<String,String>> expectedMap = domTable.getTableDataInMap();
+
+    	Table table = new Table(tableLocator);
+    	table.setExtractionMode(mode);
+    	Assert.assertEquals(mode + " headers didn't match", expectedHeaders, table.getTableHeaders());
+    	List<String[]> actual = table.getTableDataInArray();
+    	Assert.assertEquals(mode + " row count didn't match", expected.size(), actual.size());
+    	for (int i = 0; i < expected.size(); i++) {
+    		Assert.assertArrayEquals(mode + " row didn't match", expected.get(i), actual.get(i));
+    	}
+    	Assert.assertEquals(mode + " data didn't match", expectedMap, table.getTableDataInMap());
+    	Assert.assertEquals(mode + " cell value didn't match", "Row 2: Cell 3", table.getTableRowColumnData(2, 3));
+    }
+
     @Test
     public void testGetTableRowCount() throws WidgetException{
     	wd.open(url);
@@ -120,6 +163,24 @@ public class TableTest {
     	Assert.assertEquals("Error matching row count", tableCount, 3);
     }
 
+    @Test
+    public void testRowAndRows() throws WidgetException{
+    	for (Table.ExtractionMode mode : Table.ExtractionMode.values()) {
+    		wd.open(url);
+    		Table table = new Table(tableLocator);
+    		table.setExtractionMode(mode);
+    		Assert.assertEquals(mode + " row didn't match", "Row 2: Cell 4", table.row(2)[3]);
+    		Assert.assertEquals(mode + " row count didn't match", 3, table.getTableRowCount());
+    		int count = 0;
+    		Iterator<String[]> rows = table.rows();
+    		while (rows.hasNext()) {
+    			count++;
+    			Assert.assertEquals(mode + " row didn't match", "Row " + count + ": Cell 1", rows.next()[0]);
+    		}
+    		Assert.assertEquals(mode + " row count didn't match", 3, count);
+    	}
+    }
+
     @Test
     public void testGetTableColumnCount() throws WidgetException{
     	wd.open(url);
@@ -148,6 +209,24 @@ public class TableTest {
     	Assert.assertEquals(rowNumber, 1);
     }
 
+    @Test
+    public void testSnapshotLookups() throws WidgetException{
+    	wd.open(url);
+    	TableSnapshot snapshot = new Table(tableLocator).getSnapshot();
+    	snapshot.index("Header 2");
+    	Map<String, String> map = new HashMap<String,String>();
+    	map.put("Header 1", "Row 3: Cell 1");
+    	map.put("Header 2", "Row 3: Cell 2");
+    	Assert.assertEquals("Error matching row number", 3, snapshot.getRowNumber(map));
+    	Assert.assertTrue(snapshot.isItemExist(map));
+    	map.put("Header 2", "Row 2: Cell 2");
+    	Assert.assertFalse(snapshot.isItemExist(map));
+    	Assert.assertEquals("Error matching row number", -1, snapshot.getRowNumber(map));
+    	Assert.assertEquals("Table cell value didn't match!", "Row 2: Cell 4", snapshot.getTableRowColumnData(2, 4));
+    	Assert.assertEquals("Error matching row count", 3, snapshot.getRowCount());
+    	Assert.assertEquals("Table header sizes are different!", expectedTableTest1Headers, snapshot.getHeaders());
+    }
+
     @Test
     public void testIsElementPresentNoSuchTable() throws WidgetException{
     	wd.open(url);